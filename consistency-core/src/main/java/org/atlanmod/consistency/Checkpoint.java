@@ -0,0 +1,256 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageCodec;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.update.AddManyReferences;
+import org.atlanmod.consistency.update.AddManyValues;
+import org.atlanmod.consistency.update.Attach;
+import org.atlanmod.consistency.update.FeatureOperation;
+import org.atlanmod.consistency.update.FeatureTable;
+import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.OperationFactory;
+import org.atlanmod.consistency.update.SetReference;
+import org.atlanmod.consistency.update.SetValue;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.atlanmod.consistency.util.ConsistencyUtil.identifierFor;
+
+/**
+ * The serialized state of a {@link SharedResource}, as of an operation of its history.
+ * <p>
+ * The state is encoded with {@link MessageCodec} as the operations recreating it: the attachment of
+ * every object, in containment order, then the values of their features. A resource is recovered by
+ * executing these operations, then the operations logged after the checkpoint, see
+ * {@link SharedResource#recover(Checkpoint, List)}.
+ * <p>
+ * Derived, transient and container features are not recorded, nor are the single-valued ends of
+ * references whose opposite is many-valued: the opposite end restores them, in order.
+ * <p>
+ * A checkpoint can be {@link #write(DataOutput) written} and {@link #read(DataInput) read} back, to be
+ * persisted with a {@link WriteAheadLog} or sent to a joining node.
+ */
+public class Checkpoint {
+
+    private final int sequence;
+    private final int instances;
+    private final int count;
+    private final byte[] state;
+
+    /**
+     * The recorded operation of each feature, and the class of each object, indexed on first lookup.
+     */
+    private Map<FeatureId, Operation> byFeature;
+    private Map<Id, EClass> classes;
+
+    private Checkpoint(int sequence, int instances, int count, byte[] state) {
+        this.sequence = sequence;
+        this.instances = instances;
+        this.count = count;
+        this.state = state;
+    }
+
+    /**
+     * Serializes the current state of {@code resource}.
+     *
+     * @param sequence the sequence number of the last operation reflected by the state, or {@code -1}
+     */
+    public static Checkpoint of(SharedResource resource, int sequence) {
+        NodeId nid = resource.getParentNid();
+        List<Operation> attachments = new ArrayList<>();
+        List<Operation> features = new ArrayList<>();
+        for (EObject root : resource.getContents()) {
+            snapshot(root, nid, attachments, features);
+            for (TreeIterator<EObject> it = root.eAllContents(); it.hasNext(); ) {
+                snapshot(it.next(), nid, attachments, features);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Operation each : attachments) {
+            MessageCodec.encode(each.asMessage(), out);
+        }
+        for (Operation each : features) {
+            MessageCodec.encode(each.asMessage(), out);
+        }
+        return new Checkpoint(sequence, resource.instances(), attachments.size() + features.size(), bytes.toByteArray());
+    }
+
+    private static void snapshot(EObject eObject, NodeId nid, List<Operation> attachments, List<Operation> features) {
+        InstanceId oid = (InstanceId) identifierFor(eObject);
+        if (oid == null) {
+            return;
+        }
+        attachments.add(new Attach(oid, eObject.eClass(), nid));
+
+        FeatureTable table = FeatureTable.of(eObject.eClass());
+        for (EStructuralFeature feature : eObject.eClass().getEAllStructuralFeatures()) {
+            if (!isRecorded(feature) || !eObject.eIsSet(feature)) {
+                continue;
+            }
+            FeatureId fid = oid.withFeature(table.entry(feature).featureId());
+            Object value = eObject.eGet(feature);
+            if (feature instanceof EReference) {
+                if (feature.isMany()) {
+                    List<Id> ids = new ArrayList<>();
+                    for (Object each : (List<?>) value) {
+                        Id id = identifierFor((EObject) each);
+                        if (id != null) {
+                            ids.add(id);
+                        }
+                    }
+                    features.add(new AddManyReferences(fid, ids, nid));
+                } else {
+                    Id id = identifierFor((EObject) value);
+                    if (id != null) {
+                        features.add(new SetReference(fid, id, nid));
+                    }
+                }
+            } else if (feature.isMany()) {
+                features.add(new AddManyValues(fid, new ArrayList<Object>((List<?>) value), nid));
+            } else {
+                features.add(new SetValue(fid, value, null, nid));
+            }
+        }
+    }
+
+    /**
+     * Checks whether the changes of a feature are recorded on the feature itself, rather than derived from
+     * its opposite.
+     */
+    static boolean isRecorded(EStructuralFeature feature) {
+        if (feature.isDerived() || feature.isTransient() || !feature.isChangeable()) {
+            return false;
+        }
+        if (feature instanceof EReference) {
+            EReference reference = (EReference) feature;
+            EReference opposite = reference.getEOpposite();
+            return !reference.isContainer() && (opposite == null || reference.isMany() || !opposite.isMany());
+        }
+        return true;
+    }
+
+    /**
+     * Writes this checkpoint to {@code out}.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(sequence);
+        out.writeInt(instances);
+        out.writeInt(count);
+        out.writeInt(state.length);
+        out.write(state);
+    }
+
+    /**
+     * Reads a checkpoint written by {@link #write(DataOutput)}.
+     */
+    public static Checkpoint read(DataInput in) throws IOException {
+        int sequence = in.readInt();
+        int instances = in.readInt();
+        int count = in.readInt();
+        byte[] state = new byte[in.readInt()];
+        in.readFully(state);
+        return new Checkpoint(sequence, instances, count, state);
+    }
+
+    /**
+     * @return the sequence number of the last operation reflected by this checkpoint, or {@code -1}
+     */
+    public int sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the number of instance identifiers allocated by the resource
+     */
+    public int instances() {
+        return instances;
+    }
+
+    /**
+     * @return the size of the serialized state, in bytes
+     */
+    public int size() {
+        return state.length;
+    }
+
+    /**
+     * @return the operation recording the value of {@code fid}, or {@code null} if it was not set
+     */
+    public Operation operation(FeatureId fid) {
+        index();
+        return byFeature.get(fid);
+    }
+
+    /**
+     * @return the class of the object {@code oid}, or {@code null} if it was not attached
+     */
+    public EClass eClassOf(Id oid) {
+        index();
+        return classes.get(oid);
+    }
+
+    private void index() {
+        if (byFeature != null) {
+            return;
+        }
+        Map<FeatureId, Operation> operations = Maps.newHashMap();
+        Map<Id, EClass> types = Maps.newHashMap();
+        for (Operation each : operations()) {
+            if (each instanceof Attach) {
+                types.put(each.instanceId(), ((Attach) each).getEClass());
+            } else {
+                operations.put(((FeatureOperation) each).featureId(), each);
+            }
+        }
+        classes = types;
+        byFeature = operations;
+    }
+
+    /**
+     * Decodes the operations recreating the state: the attachments come first.
+     */
+    public List<Operation> operations() {
+        ByteBuffer buffer = ByteBuffer.wrap(state);
+        List<Operation> operations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UpdateMessage message = MessageCodec.decode(buffer);
+            operations.add(OperationFactory.fromMessage(message, message.getOriginator()));
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.PackageId;
+import org.atlanmod.consistency.core.TypeId;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally maintained extents of a {@link SharedResource}: the attached objects of each
+ * {@link EClass}, indexed by the local instance number of their identifier.
+ * <p>
+ * An extent contains the direct instances of its class only. Additions and removals are O(1), and an
+ * extent can be traversed by position or with {@link Extent#forEach(Consumer)} without allocating.
+ */
+public class ExtentIndex {
+
+    private static final int ABSENT = -1;
+
+    private final Map<EClass, Extent> byClass = Maps.newHashMap();
+    private final Map<TypeId, Extent> byType = Maps.newHashMap();
+    private final Map<EPackage, PackageId> packages = Maps.newHashMap();
+
+    /**
+     * Position of each instance in its extent, indexed by instance number.
+     */
+    private int[] positions = new int[0];
+
+    public void add(int instance, EObject eObject) {
+        if (instance >= positions.length) {
+            int previous = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(instance + 1, previous * 2));
+            Arrays.fill(positions, previous, positions.length, ABSENT);
+        }
+        assert positions[instance] == ABSENT : "Instance already indexed: " + instance;
+
+        positions[instance] = extent(eObject.eClass()).add(instance, eObject);
+    }
+
+    public void remove(int instance, EObject eObject) {
+        if (instance >= positions.length || positions[instance] == ABSENT) {
+            return;
+        }
+        Extent extent = byClass.get(eObject.eClass());
+        int moved = extent.remove(positions[instance]);
+        if (moved != ABSENT) {
+            positions[moved] = positions[instance];
+        }
+        positions[instance] = ABSENT;
+    }
+
+    /**
+     * Returns the extent of {@code eClass}, which is empty if no instance was ever attached.
+     */
+    public Extent extent(EClass eClass) {
+        Extent extent = byClass.get(eClass);
+        if (extent == null) {
+            extent = new Extent(eClass, typeOf(eClass));
+            byClass.put(eClass, extent);
+            byType.put(extent.typeId(), extent);
+        }
+        return extent;
+    }
+
+    /**
+     * Returns the extent identified by {@code typeId}, or {@code null} if unknown to this index.
+     */
+    public Extent extent(TypeId typeId) {
+        return byType.get(typeId);
+    }
+
+    /**
+     * Returns the identifier of {@code eClass}. Packages are numbered in the order this index meets them.
+     */
+    public TypeId typeOf(EClass eClass) {
+        Extent extent = byClass.get(eClass);
+        if (extent != null) {
+            return extent.typeId();
+        }
+        PackageId pid = packages.computeIfAbsent(eClass.getEPackage(), p -> new PackageId((short) packages.size()));
+        return new TypeId(pid, IdBuilder.fromShort((short) eClass.getClassifierID()));
+    }
+
+    /**
+     * The attached direct instances of an {@link EClass}.
+     */
+    public static class Extent implements Iterable<EObject> {
+        private final EClass eClass;
+        private final TypeId typeId;
+        private EObject[] elements = new EObject[8];
+        private int[] instances = new int[8];
+        private int size;
+
+        Extent(EClass eClass, TypeId typeId) {
+            this.eClass = eClass;
+            this.typeId = typeId;
+        }
+
+        public EClass eClass() {
+            return eClass;
+        }
+
+        public TypeId typeId() {
+            return typeId;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public EObject get(int position) {
+            if (position >= size) {
+                throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+            }
+            return elements[position];
+        }
+
+        @Override
+        public void forEach(Consumer<? super EObject> action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(elements[i]);
+            }
+        }
+
+        @Override
+        public Iterator<EObject> iterator() {
+            return new Iterator<EObject>() {
+                private int cursor = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < size;
+                }
+
+                @Override
+                public EObject next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return elements[cursor++];
+                }
+            };
+        }
+
+        private int add(int instance, EObject eObject) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+                instances = Arrays.copyOf(instances, size * 2);
+            }
+            elements[size] = eObject;
+            instances[size] = instance;
+            return size++;
+        }
+
+        /**
+         * Removes the element at {@code position} by moving the last element into its place.
+         *
+         * @return the instance number of the moved element, or {@code -1} if none was moved
+         */
+        private int remove(int position) {
+            int last = --size;
+            int moved = ABSENT;
+            if (position != last) {
+                elements[position] = elements[last];
+                instances[position] = instances[last];
+                moved = instances[position];
+            }
+            elements[last] = null;
+            return moved;
+        }
+    }
+}
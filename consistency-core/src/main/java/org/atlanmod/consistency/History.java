@@ -17,13 +17,40 @@ package org.atlanmod.consistency;
 import com.google.common.collect.Maps;
 import org.atlanmod.commons.log.Log;
 import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.ResourceId;
+import org.atlanmod.consistency.core.VersionVector;
+import org.atlanmod.consistency.metrics.Metrics;
+import org.atlanmod.consistency.update.Attach;
+import org.atlanmod.consistency.update.Batch;
+import org.atlanmod.consistency.update.FeatureOperation;
+import org.atlanmod.consistency.update.FeatureTable;
 import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.OperationComparator;
+import org.atlanmod.consistency.update.PositionalOperation;
+import org.atlanmod.consistency.update.SetReference;
+import org.atlanmod.consistency.update.SetValue;
+import org.atlanmod.consistency.update.Transformer;
+import org.atlanmod.consistency.util.RingBuffer;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Created on 15/03/2017.
@@ -31,10 +58,35 @@ import java.util.concurrent.LinkedBlockingQueue;
  * @author AtlanMod team.
  */
 public class History {
-    private BlockingQueue<Operation> incoming = new LinkedBlockingQueue<>();
-    private Map<FeatureId, List<Operation>> changes = Maps.newHashMap();
+    private final RingBuffer<Operation> incoming = new RingBuffer<>();
     private final SharedResource resource;
-    private List<Operation> basicHistory = new ArrayList<>();
+    private final OperationLog log = new OperationLog();
+    private final VersionIndex versions = new VersionIndex();
+    private List<Operation> batch;
+    private int depth = 0;
+
+    private boolean transforming;
+    private boolean integrating;
+    private boolean replaying;
+
+    private final Deque<Checkpoint> checkpoints = new ArrayDeque<>();
+    private int checkpointInterval;
+    private int retainedCheckpoints = 2;
+    private WriteAheadLog wal;
+
+    /**
+     * Local positional operations that some node may not have integrated, in the order they were issued,
+     * transformed against the remote operations integrated since.
+     */
+    private final List<PositionalOperation> pending = new ArrayList<>();
+    /**
+     * For each other node, the timestamp of its last operation integrated here.
+     */
+    private VersionVector integrated = VersionVector.EMPTY;
+    /**
+     * For each other node, the timestamp of the last local operation it had integrated, as last heard of.
+     */
+    private final Map<Integer, Long> acknowledged = Maps.newHashMap();
 
     public History(SharedResource resource) {
         this.resource = resource;
@@ -45,28 +97,505 @@ public class History {
     }
 
     public void integrate(Operation operation) {
-        resource.execute(operation);
+        integrate(operation, operation.getOriginator());
+    }
+
+    /**
+     * Executes an operation received from {@code origin}. With operational transformation, its positional
+     * operations are first transformed against the concurrent local ones, and it is not sent again.
+     */
+    public void integrate(Operation operation, NodeId origin) {
+        if (!transforming) {
+            resource.execute(operation);
+            return;
+        }
+        Operation transformed = transform(operation, origin.toInt());
+        integrated = integrated.with(origin.toInt(), operation.timestamp());
+        if (transformed != null) {
+            integrating = true;
+            try {
+                resource.execute(transformed);
+            } finally {
+                integrating = false;
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the operational transformation of the received positional operations.
+     * All the nodes sharing the resource must use the same mode.
+     *
+     * @see Transformer
+     */
+    public void setTransforming(boolean transforming) {
+        this.transforming = transforming;
+        if (!transforming) {
+            pending.clear();
+            acknowledged.clear();
+            integrated = VersionVector.EMPTY;
+        }
+    }
+
+    public boolean isTransforming() {
+        return transforming;
+    }
 
+    /**
+     * Records a local operation. Its positional operations keep their context, and are kept until every
+     * node heard of has integrated them.
+     */
+    public void captured(Operation operation) {
+        if (transforming && operation instanceof PositionalOperation
+                && ((PositionalOperation) operation).isPositional()) {
+            ((PositionalOperation) operation).setContext(integrated);
+            pending.add((PositionalOperation) operation);
+        }
+    }
+
+    /**
+     * @return the local positional operations that may not have been integrated by every node
+     */
+    public List<PositionalOperation> pending() {
+        return pending;
+    }
+
+    private Operation transform(Operation operation, int origin) {
+        if (operation instanceof Batch) {
+            List<Operation> operations = new ArrayList<>();
+            for (Operation each : ((Batch) operation).operations()) {
+                Operation transformed = transform(each, origin);
+                if (transformed != null) {
+                    operations.add(transformed);
+                }
+            }
+            Batch transformed = new Batch(operations, operation.getOriginator());
+            transformed.stamp(operation.timestamp());
+            return transformed;
+        }
+        if (!(operation instanceof PositionalOperation) || !((PositionalOperation) operation).isPositional()) {
+            return operation;
+        }
+
+        PositionalOperation remote = (PositionalOperation) operation;
+        int self = resource.getParentNid().toInt();
+        long known = remote.context() == null ? 0 : remote.context().get(self);
+        acknowledged.merge(origin, known, Math::max);
+
+        for (ListIterator<PositionalOperation> it = pending.listIterator(); it.hasNext() && remote != null; ) {
+            PositionalOperation local = it.next();
+            if (local.timestamp() <= known) {
+                continue;
+            }
+            boolean wins = OperationComparator.INSTANCE.compare(remote, local) < 0;
+            PositionalOperation rebased = Transformer.transform(local, remote, !wins);
+            remote = Transformer.transform(remote, local, wins);
+            if (rebased == null) {
+                it.remove();
+            } else {
+                it.set(rebased);
+            }
+        }
+
+        long oldest = acknowledged.values().stream().mapToLong(Long::longValue).min().orElse(0);
+        pending.removeIf(each -> each.timestamp() <= oldest);
+        return remote;
     }
 
     public void add(Operation operation) {
+        Metrics metrics = resource.metrics();
+        long start = metrics.start();
+        if (operation.timestamp() == 0) {
+            operation.stamp(resource.getClock().now());
+        }
+        if (replaying) {
+            return;
+        }
+        if (inBatch()) {
+            batch.add(operation);
+            return;
+        }
+        if (integrating) {
+            // Transformed against this replica only, sending it again would be meaningless
+            append(operation);
+            metrics.record(Metrics.Stage.ENQUEUE, operation, start);
+            return;
+        }
+        // Logged first, so that a consumer of the queue only sees durable operations
+        append(operation);
         resource.broadcast(operation);
-        Log.info("New operation: {0}", operation);
+        Log.debug("New operation: {0}", operation);
         incoming.offer(operation);
-        basicHistory.add(operation);
+        metrics.record(Metrics.Stage.ENQUEUE, operation, start);
+    }
+
+    private void append(Operation operation) {
+        int sequence = log.append(operation);
+        versions.record(operation, sequence);
+        if (wal != null) {
+            if (log.isOnHeap(sequence)) {
+                Log.warn("Not logging {0} durably: its values cannot be encoded", operation);
+            } else {
+                wal.append(sequence, log.encoded(sequence));
+            }
+        }
+    }
+
+    /**
+     * Makes the logged operations durable in {@code wal}, or only keeps them in memory if {@code null}.
+     * The operations logged before are not written.
+     *
+     * @see WriteAheadLog#recover(java.nio.file.Path, SharedResource)
+     */
+    public void setWriteAheadLog(WriteAheadLog wal) {
+        this.wal = wal;
+    }
+
+    public WriteAheadLog writeAheadLog() {
+        return wal;
+    }
+
+    /**
+     * Numbers the next logged operation {@code sequence}, so that a recovered resource continues the
+     * numbering of the log it was recovered from. No operation must have been logged.
+     */
+    public void startAt(int sequence) {
+        log.startAt(sequence);
+    }
+
+    /**
+     * Commits the operations pending in the write-ahead log, if any. Called before sending operations, so
+     * that no node receives an operation that its originator could lose.
+     */
+    public void sync() {
+        if (wal != null) {
+            wal.sync();
+        }
+    }
+
+    /**
+     * Starts a batch: the operations added until the matching {@link #commit()} are grouped into a single
+     * {@link Batch}. Batches can be nested, only the outermost one is committed.
+     */
+    public void begin() {
+        if (depth++ == 0) {
+            batch = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Ends the current batch. When the outermost batch ends, its operations are added as a single
+     * {@link Batch}, or as is if there is only one.
+     */
+    public void commit() {
+        if (depth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        if (--depth > 0) {
+            return;
+        }
+        List<Operation> operations = batch;
+        batch = null;
+        if (operations.size() == 1) {
+            add(operations.get(0));
+        } else if (!operations.isEmpty()) {
+            Batch committed = new Batch(operations, resource.getParentNid());
+            if (!integrating && !replaying) {
+                committed.stamp(resource.getClock().now());
+                restamp(operations, committed.timestamp());
+            }
+            add(committed);
+        }
+    }
+
+    /**
+     * Gives the operations of a local batch the timestamp of the batch, which they are sent under, and
+     * records their register writes with it.
+     */
+    private void restamp(List<Operation> operations, long timestamp) {
+        LwwRegisters registers = resource.registers();
+        for (Operation each : operations) {
+            each.stamp(timestamp);
+            if (each instanceof Batch) {
+                restamp(((Batch) each).operations(), timestamp);
+            } else if (registers != null) {
+                registers.write(each, resource.getParentNid());
+            }
+        }
+    }
+
+    public boolean inBatch() {
+        return depth > 0;
+    }
+
+    /**
+     * Runs {@code recovery} without logging nor sending the operations it produces.
+     */
+    public void replay(Runnable recovery) {
+        replaying = true;
+        try {
+            recovery.run();
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /**
+     * Takes a checkpoint of the resource after every {@code interval} logged operations, or never if
+     * {@code 0}. Checkpoints are taken by {@link #checkpointIfDue()}, between changes.
+     */
+    public void setCheckpointInterval(int interval) {
+        checkArgument(interval >= 0, "interval must not be negative: %s", interval);
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Sets how many checkpoints are kept. The operations reflected by the oldest kept checkpoint are
+     * truncated from the log.
+     */
+    public void setRetainedCheckpoints(int retained) {
+        checkArgument(retained > 0, "retained must be positive: %s", retained);
+        this.retainedCheckpoints = retained;
+    }
+
+    /**
+     * Takes a checkpoint if {@link #setCheckpointInterval(int) interval} operations were logged since the
+     * last one.
+     *
+     * @return {@code true} if a checkpoint was taken
+     */
+    public boolean checkpointIfDue() {
+        int last = checkpoints.isEmpty() ? -1 : checkpoints.getLast().sequence();
+        if (checkpointInterval == 0 || log.size() - 1 - last < checkpointInterval) {
+            return false;
+        }
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * Takes a checkpoint of the resource as of the last logged operation, and truncates the operations
+     * that are no longer needed to recover from the oldest kept checkpoint. With a write-ahead log, the
+     * checkpoint is persisted with it, and its segments are truncated likewise.
+     */
+    public Checkpoint checkpoint() {
+        Checkpoint checkpoint = Checkpoint.of(resource, log.size() - 1);
+        checkpoints.addLast(checkpoint);
+        while (checkpoints.size() > retainedCheckpoints) {
+            checkpoints.removeFirst();
+        }
+        log.truncate(checkpoints.getFirst().sequence() + 1);
+        if (wal != null) {
+            wal.writeCheckpoint(checkpoint);
+            wal.truncate(checkpoints.getFirst().sequence() + 1);
+        }
+        Log.debug("Checkpoint at {0}: {1} bytes", checkpoint.sequence(), checkpoint.size());
+        return checkpoint;
+    }
+
+    /**
+     * @return the last checkpoint, or {@code null} if none was taken
+     */
+    public Checkpoint latestCheckpoint() {
+        return checkpoints.peekLast();
+    }
+
+    /**
+     * @return the last kept checkpoint taken at or before {@code sequence}, or {@code null}
+     */
+    public Checkpoint checkpointAt(int sequence) {
+        for (Iterator<Checkpoint> it = checkpoints.descendingIterator(); it.hasNext(); ) {
+            Checkpoint each = it.next();
+            if (each.sequence() <= sequence) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a feature as of the operation numbered {@code sequence}: its values for a
+     * many-valued feature, and identifiers instead of objects for a reference.
+     * <p>
+     * The value is read from the last operation on the feature up to {@code sequence}, found in the
+     * {@link VersionIndex}, or from the checkpoint preceding it. The values of a many-valued attribute are
+     * rebuilt from that checkpoint and the operations on the feature only. Many-valued references, and the
+     * references whose changes are recorded on their opposite, such as containers, are read from a
+     * {@link #viewAt(int) view}, as their operations refer to other objects.
+     *
+     * @return the value, or {@code null} if the feature was not set or its object not attached
+     * @throws IllegalArgumentException if the operations up to {@code sequence} were truncated
+     */
+    public Object valueAt(FeatureId fid, int sequence) {
+        Checkpoint base = baseOf(sequence);
+        int from = base == null ? VersionIndex.NONE : base.sequence();
+        EClass eClass = eClassOf(fid.asInstanceId(), base);
+        if (eClass == null) {
+            return null;
+        }
+        EStructuralFeature feature = FeatureTable.of(eClass).entry(fid.toInt()).feature();
+        if (feature instanceof EReference && (feature.isMany() || !Checkpoint.isRecorded(feature))) {
+            return viewAt(sequence).valueOf(fid);
+        }
+        if (!feature.isMany()) {
+            int version = versions.versionAt(fid, sequence);
+            Operation last = base == null ? null : base.operation(fid);
+            if (version > from) {
+                for (Operation each : operationsOn(fid, log.get(version))) {
+                    last = each;
+                }
+            }
+            return valueOf(last);
+        }
+        EObject scratch = EcoreUtil.create(eClass);
+        Operation initial = base == null ? null : base.operation(fid);
+        if (initial != null) {
+            initial.execute(resource, scratch);
+        }
+        for (int each : versions.between(fid, from, sequence)) {
+            for (Operation operation : operationsOn(fid, log.get(each))) {
+                operation.execute(resource, scratch);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>((List<?>) scratch.eGet(feature)));
     }
 
+    /**
+     * Materializes the state of the resource as of the operation numbered {@code sequence}, from the
+     * checkpoint preceding it and the operations after that checkpoint.
+     *
+     * @throws IllegalArgumentException if the operations up to {@code sequence} were truncated
+     */
+    public Snapshot viewAt(int sequence) {
+        Checkpoint base = baseOf(sequence);
+        List<Operation> tail = new ArrayList<>();
+        for (int i = base == null ? 0 : base.sequence() + 1; i <= sequence; i++) {
+            tail.add(log.get(i));
+        }
+        ResourceId rid = IdBuilder.resourceFromShort((short) resource.getResourceId().toInt());
+        URI uri = resource.getURI().appendQuery("sequence=" + sequence);
+        SharedResource copy = new SharedResource(uri, rid, resource.getParentNid());
+        if (base == null) {
+            copy.recover(tail);
+        } else {
+            copy.recover(base, tail);
+        }
+        return new Snapshot(sequence, copy);
+    }
+
+    /**
+     * Returns the checkpoint to read the state as of {@code sequence} from, or {@code null} to read it from
+     * the beginning of the log.
+     */
+    private Checkpoint baseOf(int sequence) {
+        checkArgument(sequence >= 0 && sequence < log.size(), "no operation numbered %s", sequence);
+        Checkpoint base = checkpointAt(sequence);
+        checkArgument(base != null || log.first() == 0, "operations up to %s were truncated", sequence);
+        return base;
+    }
+
+    private EClass eClassOf(Id oid, Checkpoint base) {
+        EObject eObject = resource.resolve(oid);
+        if (eObject != null) {
+            return eObject.eClass();
+        }
+        EClass eClass = base == null ? null : base.eClassOf(oid);
+        if (eClass != null) {
+            return eClass;
+        }
+        for (int each : versions.since(oid, log.first() - 1)) {
+            for (Operation operation : flatten(log.get(each))) {
+                if (operation instanceof Attach && oid.equals(operation.instanceId())) {
+                    return ((Attach) operation).getEClass();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Operation> operationsOn(FeatureId fid, Operation operation) {
+        List<Operation> operations = new ArrayList<>();
+        for (Operation each : flatten(operation)) {
+            if (each instanceof FeatureOperation && fid.equals(((FeatureOperation) each).featureId())) {
+                operations.add(each);
+            }
+        }
+        return operations;
+    }
+
+    private static List<Operation> flatten(Operation operation) {
+        if (!(operation instanceof Batch)) {
+            return Collections.singletonList(operation);
+        }
+        List<Operation> operations = new ArrayList<>();
+        for (Operation each : ((Batch) operation).operations()) {
+            operations.addAll(flatten(each));
+        }
+        return operations;
+    }
+
+    private static Object valueOf(Operation operation) {
+        if (operation instanceof SetValue) {
+            return ((SetValue) operation).value();
+        } else if (operation instanceof SetReference) {
+            return ((SetReference) operation).reference();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @return the logged operations after {@code checkpoint}, to recover from it
+     */
+    public List<Operation> tail(Checkpoint checkpoint) {
+        int from = checkpoint.sequence() + 1;
+        checkArgument(from >= log.first(), "operations after %s were truncated", checkpoint.sequence());
+        List<Operation> tail = new ArrayList<>(log.size() - from);
+        for (int i = from; i < log.size(); i++) {
+            tail.add(log.get(i));
+        }
+        return tail;
+    }
+
+    /**
+     * Records an operation that is neither sent nor logged, at the current version.
+     */
     public void basicAdd(Operation operation) {
-        if (changes.containsKey(operation.instanceId())){
-            changes.get(operation.instanceId()).add(operation);
+        versions.record(operation, log.size() - 1);
+    }
+
+    public VersionIndex versions() {
+        return versions;
+    }
+
+    /**
+     * @return the logged operations on the object {@code oid} after {@code version}, in order
+     */
+    public List<Operation> changesSince(Id oid, int version) {
+        int[] sequences = versions.since(oid, version);
+        List<Operation> operations = new ArrayList<>(sequences.length);
+        for (int each : sequences) {
+            if (each >= log.first()) {
+                operations.add(log.get(each));
+            }
         }
+        return operations;
     }
 
-    public BlockingQueue<Operation> queue() {
+    /**
+     * @return the operations to send, in the order they were added
+     */
+    public RingBuffer<Operation> queue() {
         return incoming;
     }
 
+    /**
+     * @return a read-only view of the operations of this history, decoded from its log on access
+     */
     public List<Operation> basicHistory() {
-        return basicHistory;
+        return log.asList();
+    }
+
+    public OperationLog log() {
+        return log;
     }
 }
@@ -0,0 +1,106 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.update.FeatureOperation;
+import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.OperationComparator;
+import org.atlanmod.consistency.update.SetReference;
+import org.atlanmod.consistency.update.SetValue;
+import org.atlanmod.consistency.update.Unset;
+
+import java.util.Map;
+
+/**
+ * Last-writer-wins registers for the single-valued features of a {@link SharedResource}.
+ * <p>
+ * Each feature remembers the tag of its last write: the hybrid logical clock timestamp of the write and
+ * the node it comes from, which breaks ties, in the order of {@link OperationComparator}. A received write older than this tag is stale and must be
+ * skipped, so that all the nodes end up with the value of the latest write, whatever the order in which
+ * they receive them. Both checking and recording a write are O(1).
+ */
+public class LwwRegisters {
+
+    private final Map<FeatureId, Tag> tags = Maps.newHashMap();
+
+    /**
+     * Returns {@code true} if {@code operation} is a write of a register: {@link SetValue},
+     * {@link SetReference} or {@link Unset}.
+     */
+    public static boolean isWrite(Operation operation) {
+        return operation instanceof SetValue || operation instanceof SetReference || operation instanceof Unset;
+    }
+
+    /**
+     * Records a write if it is newer than the last one of its feature.
+     *
+     * @param fid       the written feature
+     * @param timestamp the timestamp of the write
+     * @param origin    the node that made the write
+     * @return {@code false} if the write is stale and must not be applied
+     */
+    public boolean write(FeatureId fid, long timestamp, NodeId origin) {
+        int node = OperationComparator.nodeOf(origin);
+        Tag tag = tags.get(fid);
+        if (tag == null) {
+            tags.put(fid, new Tag(timestamp, node));
+            return true;
+        }
+        if (tag.isAfter(timestamp, node)) {
+            return false;
+        }
+        tag.timestamp = timestamp;
+        tag.node = node;
+        return true;
+    }
+
+    /**
+     * Records a write made by {@code origin}, if {@code operation} is one.
+     *
+     * @return {@code false} if the write is stale and must not be applied
+     */
+    public boolean write(Operation operation, NodeId origin) {
+        return !isWrite(operation)
+                || write(((FeatureOperation) operation).featureId(), operation.timestamp(), origin);
+    }
+
+    /**
+     * @return the timestamp of the last write of {@code fid}, or {@code 0} if it was never written
+     */
+    public long timestamp(FeatureId fid) {
+        Tag tag = tags.get(fid);
+        return tag == null ? 0 : tag.timestamp;
+    }
+
+    public int size() {
+        return tags.size();
+    }
+
+    private static class Tag {
+        private long timestamp;
+        private int node;
+
+        private Tag(long timestamp, int node) {
+            this.timestamp = timestamp;
+            this.node = node;
+        }
+
+        private boolean isAfter(long timestamp, int node) {
+            return OperationComparator.compare(this.timestamp, this.node, timestamp, node) > 0;
+        }
+    }
+}
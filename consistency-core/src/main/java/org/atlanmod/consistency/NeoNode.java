@@ -17,10 +17,13 @@ package org.atlanmod.consistency;
 //import org.atlanmod.appa.Node;
 
 import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.core.HybridLogicalClock;
 import org.atlanmod.consistency.core.NodeId;
 import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.metrics.Metrics;
 import org.atlanmod.consistency.pubsub.*;
+import org.atlanmod.consistency.update.Coalescer;
 import org.atlanmod.consistency.update.Detach;
 import org.atlanmod.consistency.update.Operation;
 import org.eclipse.emf.common.util.URI;
@@ -28,6 +31,7 @@ import org.eclipse.emf.common.util.URI;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Objects.isNull;
 
@@ -37,15 +41,21 @@ import static java.util.Objects.isNull;
  */
 public class NeoNode //extends Node
 {
-    private static short lastNodeId = 0;
+    private static final AtomicInteger lastNodeId = new AtomicInteger();
 
-    private NodeId nid = new NodeId(lastNodeId++);
+    private NodeId nid = new NodeId((short) lastNodeId.getAndIncrement());
+
+    private HybridLogicalClock clock = new HybridLogicalClock();
 
     private Producer pub;
     private Consumer sub;
 
     private SharedResourceSet resourceSet = new SharedResourceSet();
 
+    private boolean coalescing = false;
+
+    private final Metrics metrics = new Metrics();
+
     public NeoNode(Broker broker) {
         pub = new ProducerImpl(broker);
         sub = new ConsumerImpl(broker);
@@ -55,8 +65,17 @@ public class NeoNode //extends Node
         return resourceSet;
     }
 
+    /**
+     * @return the metrics of this node and of its resources, disabled by default
+     */
+    public Metrics metrics() {
+        return metrics;
+    }
+
     public void attachResource(URI uri) {
-        resourceSet.getSharedResources().add(new SharedResource(uri, nid.nextRID(), nid));
+        SharedResource resource = new SharedResource(uri, nid.nextRID(), nid, clock);
+        resource.setMetrics(metrics);
+        resourceSet.getSharedResources().add(resource);
     }
 
     /**
@@ -80,15 +99,30 @@ public class NeoNode //extends Node
         pub.send(message);
     }
 
+    /**
+     * Enables the merging of redundant operations before they are sent.
+     *
+     * @see Coalescer
+     */
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
     public void sendAll() {
         for (SharedResource resource : resourceSet.getSharedResources()) {
-            while (resource.getHistory().queue().size() > 0) {
-                try {
-                    send(resource.getHistory().queue().take().asMessage());
-                } catch (InterruptedException e) {
-                    Log.trace(e);
-                }
+            List<Operation> pending = new ArrayList<>();
+            resource.getHistory().queue().drainTo(pending);
+            resource.getHistory().sync();
+            if (coalescing) {
+                pending = Coalescer.coalesce(pending, resource.getHistory().isTransforming());
+            }
+            for (Operation each : pending) {
+                long start = metrics.start();
+                UpdateMessage message = each.message();
+                send(message);
+                metrics.record(Metrics.Stage.SEND, message.type(), start);
             }
+            resource.getHistory().checkpointIfDue();
         }
     }
 
@@ -98,9 +132,11 @@ public class NeoNode //extends Node
      */
     private void receive(UpdateMessage message) {
         //sub.receive(PubSub.TIMEOUT_MS);
+        long start = metrics.start();
         for (SharedResource resource : resourceSet.getSharedResources()) {
             resource.receive(message);
         }
+        metrics.record(Metrics.Stage.RECEIVE, message.type(), start);
     }
 
     /**
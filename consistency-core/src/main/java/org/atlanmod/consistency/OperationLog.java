@@ -0,0 +1,315 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency;
+
+import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageCodec;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.update.BaseOperation;
+import org.atlanmod.consistency.update.Invalid;
+import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.OperationFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * An append-only log of operations, stored outside of the heap.
+ * <p>
+ * Each operation is encoded with {@link MessageCodec} into a sequence of fixed-size direct buffers, as a
+ * record made of its length and its encoded message. Operations are numbered from {@code 0} in the order
+ * they are appended, and read back by number: each read decodes a new copy of the operation. Only the
+ * position of each record, 8 bytes per operation, stays on the heap. The oldest operations can be
+ * truncated, which releases their chunks.
+ * <p>
+ * Inverse operations refer to live objects and cannot be encoded. The last {@code undoDepth} appended
+ * operations are kept on the heap, and build the inverses of their decoded copies when first asked.
+ * <p>
+ * An operation whose values cannot be encoded, such as an attribute value that is not
+ * {@link java.io.Serializable}, is kept on the heap instead, with a marker record, and is read back as is.
+ */
+public class OperationLog {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int DEFAULT_UNDO_DEPTH = 1024;
+
+    private static final byte MESSAGE = 0;
+    private static final byte INVALID = 1;
+    private static final byte HEAP = 2;
+    private static final short NO_NODE = Short.MIN_VALUE;
+
+    private final int chunkSize;
+    private final int undoDepth;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final Map<Integer, Operation> appended;
+    private final Map<Integer, Operation> onHeap = new HashMap<>();
+    private final Scratch scratch = new Scratch();
+    private final DataOutputStream out = new DataOutputStream(scratch);
+
+    /**
+     * Position of each retained record, from the first one: the index of its chunk in the high 32 bits,
+     * counting the dropped chunks, and its offset in the low ones.
+     */
+    private long[] positions = new long[64];
+    private int size;
+    private int first;
+    private int droppedChunks;
+
+    public OperationLog() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_UNDO_DEPTH);
+    }
+
+    public OperationLog(int chunkSize, int undoDepth) {
+        checkArgument(chunkSize > 0, "chunkSize must be positive: %s", chunkSize);
+        checkArgument(undoDepth >= 0, "undoDepth must not be negative: %s", undoDepth);
+        this.chunkSize = chunkSize;
+        this.undoDepth = undoDepth;
+        this.appended = new LinkedHashMap<Integer, Operation>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Operation> eldest) {
+                return size() > undoDepth;
+            }
+        };
+    }
+
+    /**
+     * Appends an operation to this log.
+     *
+     * @return the sequence number of the operation
+     */
+    public int append(Operation operation) {
+        scratch.reset();
+        try {
+            out.writeInt(0);
+            try {
+                write(operation, out);
+            } catch (IllegalArgumentException | NotSerializableException e) {
+                Log.debug("Keeping {0} on the heap: {1}", operation, e.getMessage());
+                scratch.reset();
+                out.writeInt(0);
+                out.writeByte(HEAP);
+                onHeap.put(size, operation);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer record = scratch.asBuffer();
+        record.putInt(0, record.remaining() - Integer.BYTES);
+
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < record.remaining()) {
+            chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, record.remaining()));
+            chunks.add(chunk);
+        }
+        if (size - first == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[size - first] = (long) (droppedChunks + chunks.size() - 1) << 32 | chunk.position();
+        chunk.put(record);
+
+        if (undoDepth > 0) {
+            appended.put(size, operation);
+        }
+        return size++;
+    }
+
+    /**
+     * Decodes the operation numbered {@code sequence}.
+     */
+    public Operation get(int sequence) {
+        Operation heap = onHeap.get(sequence);
+        if (heap != null) {
+            return heap;
+        }
+        Operation operation = read(encoded(sequence));
+        Operation original = appended.get(sequence);
+        if (original != null && operation instanceof BaseOperation) {
+            ((BaseOperation) operation).invertedBy(original::inverse);
+        }
+        return operation;
+    }
+
+    /**
+     * Returns the operation numbered {@code sequence} as encoded by {@link #write(Operation, DataOutput)},
+     * without copying it, or a marker if it is {@link #isOnHeap(int) kept on the heap}.
+     */
+    ByteBuffer encoded(int sequence) {
+        if (sequence < first || sequence >= size) {
+            throw new IndexOutOfBoundsException("Sequence: " + sequence + ", First: " + first + ", Size: " + size);
+        }
+        long position = positions[sequence - first];
+        ByteBuffer record = chunks.get((int) (position >>> 32) - droppedChunks).duplicate();
+        int start = (int) position + Integer.BYTES;
+        record.limit(start + record.getInt((int) position)).position(start);
+        return record.slice();
+    }
+
+    /**
+     * @return {@code true} if the operation numbered {@code sequence} could not be encoded
+     */
+    boolean isOnHeap(int sequence) {
+        return onHeap.containsKey(sequence);
+    }
+
+    /**
+     * Encodes an operation, without its inverse.
+     *
+     * @throws IllegalArgumentException if a value of the operation cannot be encoded
+     */
+    static void write(Operation operation, DataOutput out) throws IOException {
+        if (operation instanceof Invalid) {
+            NodeId originator = operation.getOriginator();
+            out.writeByte(INVALID);
+            out.writeShort(originator == null ? NO_NODE : originator.toInt());
+            out.writeLong(operation.timestamp());
+        } else {
+            out.writeByte(MESSAGE);
+            MessageCodec.encode(operation.message(), out);
+        }
+    }
+
+    /**
+     * Decodes an operation encoded by {@link #write(Operation, DataOutput)}.
+     */
+    static Operation read(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        checkState(kind != HEAP, "the operation was kept on the heap of its log");
+        if (kind == INVALID) {
+            short node = buffer.getShort();
+            Operation operation = new Invalid(node == NO_NODE ? null : new NodeId(node));
+            operation.stamp(buffer.getLong());
+            return operation;
+        }
+        UpdateMessage message = MessageCodec.decode(buffer);
+        return OperationFactory.fromMessage(message, message.getOriginator());
+    }
+
+    /**
+     * @return the number of operations appended to this log, which is the sequence number of the next one
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the sequence number of the first operation still in this log
+     */
+    public int first() {
+        return first;
+    }
+
+    /**
+     * @return {@code true} if this log retains no operation
+     */
+    public boolean isEmpty() {
+        return size == first;
+    }
+
+    /**
+     * Drops the operations numbered below {@code sequence}, and releases the chunks that only hold them.
+     * The other operations keep their sequence numbers.
+     */
+    public void truncate(int sequence) {
+        int before = Math.min(sequence, size);
+        if (before <= first) {
+            return;
+        }
+        int chunk = before < size
+                ? (int) (positions[before - first] >>> 32) - droppedChunks
+                : chunks.size() - 1;
+        chunks.subList(0, chunk).clear();
+        droppedChunks += chunk;
+
+        System.arraycopy(positions, before - first, positions, 0, size - before);
+        appended.keySet().removeIf(each -> each < before);
+        onHeap.keySet().removeIf(each -> each < before);
+        first = before;
+    }
+
+    /**
+     * Numbers the next operation {@code sequence}, as if the operations before it were appended then
+     * truncated. This log must not hold any operation.
+     */
+    public void startAt(int sequence) {
+        checkState(isEmpty(), "the log holds operations %s to %s", first, size - 1);
+        checkArgument(sequence >= size, "sequence %s is below the next one %s", sequence, size);
+        first = sequence;
+        size = sequence;
+    }
+
+    /**
+     * @return the number of off-heap bytes used by the records
+     */
+    public long bytes() {
+        long bytes = 0;
+        for (ByteBuffer each : chunks) {
+            bytes += each.position();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of allocated chunks
+     */
+    public int chunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns a read-only view of the retained operations of this log, decoded on access.
+     */
+    public List<Operation> asList() {
+        return new View();
+    }
+
+    private class View extends AbstractList<Operation> implements RandomAccess {
+        @Override
+        public Operation get(int index) {
+            return OperationLog.this.get(first + index);
+        }
+
+        @Override
+        public int size() {
+            return size - first;
+        }
+    }
+
+    /**
+     * An output stream whose content can be read without being copied.
+     */
+    private static class Scratch extends ByteArrayOutputStream {
+        ByteBuffer asBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
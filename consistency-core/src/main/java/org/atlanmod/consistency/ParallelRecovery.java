@@ -0,0 +1,222 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.update.Attach;
+import org.atlanmod.consistency.update.Batch;
+import org.atlanmod.consistency.update.ElementOperation;
+import org.atlanmod.consistency.update.FeatureOperation;
+import org.atlanmod.consistency.update.FeatureTable;
+import org.atlanmod.consistency.update.Invalid;
+import org.atlanmod.consistency.update.Operation;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Recovers a resource from a long sequence of operations, such as read from a {@link WriteAheadLog}, on
+ * several threads.
+ * <p>
+ * Recovery runs in three phases separated by barriers:
+ * <ol>
+ * <li>the {@link Attach}es, in order, each object getting the identifier it is attached with;</li>
+ * <li>the operations on attributes, partitioned by {@link org.atlanmod.consistency.core.InstanceId}: each
+ * partition is applied in order by one thread, and the partitions in parallel, as they only change the
+ * object they target and notifications are disabled;</li>
+ * <li>the other operations, in order: references, which change their targets and the contents of the
+ * resource, detachments, and sequence operations, which share the sequences of the resource.</li>
+ * </ol>
+ * An operation on an attribute only commutes with the operations on other features, so this yields the
+ * state of a sequential replay. Batches are flattened, and invalid operations skipped.
+ */
+public class ParallelRecovery {
+
+    private final int parallelism;
+
+    public ParallelRecovery() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelRecovery(int parallelism) {
+        checkArgument(parallelism > 0, "parallelism must be positive: %s", parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Replays {@code operations} into {@code resource}, which must be empty. The recovered operations are
+     * neither logged nor sent.
+     *
+     * @return the statistics of the recovery
+     */
+    public Result recover(SharedResource resource, List<Operation> operations) {
+        long start = System.nanoTime();
+        List<Operation> flat = new ArrayList<>(operations.size());
+        flatten(operations, flat);
+
+        Result result = new Result(flat.size());
+        resource.getHistory().replay(() -> {
+            List<Operation> others = new ArrayList<>();
+            Map<Id, List<Operation>> partitions = Maps.newLinkedHashMap();
+            for (Operation each : flat) {
+                if (each instanceof Attach) {
+                    resource.replay(each);
+                    result.attached++;
+                }
+            }
+            for (Operation each : flat) {
+                if (each instanceof Attach) {
+                    continue;
+                }
+                if (isLocal(resource, each)) {
+                    partitions.computeIfAbsent(each.instanceId(), id -> new ArrayList<>()).add(each);
+                    result.parallel++;
+                } else {
+                    others.add(each);
+                }
+            }
+            result.partitions = partitions.size();
+            applyInParallel(resource, new ArrayList<>(partitions.values()));
+            others.forEach(resource::execute);
+        });
+        result.nanos = System.nanoTime() - start;
+        Log.info("Recovered {0}", result);
+        return result;
+    }
+
+    private void applyInParallel(SharedResource resource, List<List<Operation>> partitions) {
+        int workers = Math.min(parallelism, partitions.size());
+        if (workers <= 1) {
+            partitions.forEach(partition -> partition.forEach(resource::execute));
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            tasks.add(() -> {
+                for (int i = worker; i < partitions.size(); i += workers) {
+                    partitions.get(i).forEach(resource::execute);
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Void> each : executor.invokeAll(tasks)) {
+                each.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recovery interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Recovery failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Checks whether {@code operation} only changes an attribute of its target.
+     */
+    private static boolean isLocal(SharedResource resource, Operation operation) {
+        if (!(operation instanceof FeatureOperation) || operation instanceof ElementOperation) {
+            return false;
+        }
+        EObject eObject = resource.resolve(operation.instanceId());
+        if (eObject == null) {
+            return false;
+        }
+        int featureId = ((FeatureOperation) operation).featureId().toInt();
+        FeatureTable table = FeatureTable.of(eObject.eClass());
+        return featureId < table.size() && table.entry(featureId).feature() instanceof EAttribute;
+    }
+
+    private static void flatten(List<Operation> operations, List<Operation> flat) {
+        for (Operation each : operations) {
+            if (each instanceof Batch) {
+                flatten(((Batch) each).operations(), flat);
+            } else if (!(each instanceof Invalid)) {
+                flat.add(each);
+            }
+        }
+    }
+
+    /**
+     * The statistics of a recovery.
+     */
+    public static class Result {
+        private final int operations;
+        private int attached;
+        private int parallel;
+        private int partitions;
+        private long nanos;
+
+        private Result(int operations) {
+            this.operations = operations;
+        }
+
+        /**
+         * @return the number of replayed operations, batches excluded
+         */
+        public int operations() {
+            return operations;
+        }
+
+        public int attached() {
+            return attached;
+        }
+
+        /**
+         * @return the number of operations applied in parallel
+         */
+        public int parallel() {
+            return parallel;
+        }
+
+        public int partitions() {
+            return partitions;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the number of operations replayed per second
+         */
+        public double throughput() {
+            return nanos == 0 ? 0 : operations * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d operations (%d attached, %d in %d partitions) in %.1f ms, %.0f op/s",
+                    operations, attached, parallel, partitions, nanos / 1e6, throughput());
+        }
+    }
+}
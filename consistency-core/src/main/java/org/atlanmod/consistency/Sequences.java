@@ -0,0 +1,44 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.util.Rga;
+
+import java.util.Map;
+
+/**
+ * The replicated sequences of the many-valued features of a {@link SharedResource}.
+ * <p>
+ * Each sequence mirrors the {@link org.eclipse.emf.common.util.EList} of a feature of an object: its
+ * elements are the elements of the list, in the same order, identified by stable
+ * {@link org.atlanmod.consistency.core.ElementId}s. A sequence only knows the elements added since the
+ * object was attached; a list that already had elements is replicated by position instead.
+ */
+public class Sequences {
+
+    private final Map<FeatureId, Rga> sequences = Maps.newHashMap();
+
+    /**
+     * Returns the sequence of {@code fid}, which is created empty if needed.
+     */
+    public Rga of(FeatureId fid) {
+        return sequences.computeIfAbsent(fid, f -> new Rga());
+    }
+
+    public int size() {
+        return sequences.size();
+    }
+}
@@ -14,20 +14,23 @@
 
 package org.atlanmod.consistency;
 
-import com.google.common.collect.Maps;
 import graph.Graph;
 import org.atlanmod.commons.log.Log;
 import graph.MultiValuesExample;
 import org.atlanmod.consistency.adapter.EObjectAdapter;
 import org.atlanmod.consistency.core.*;
 import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.metrics.Metrics;
 import org.atlanmod.consistency.update.*;
+import org.atlanmod.consistency.util.ObjectTable;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
 
 import java.util.*;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.atlanmod.consistency.util.ConsistencyUtil.adapterFor;
 import static org.atlanmod.consistency.util.ConsistencyUtil.identifierFor;
 import static org.atlanmod.consistency.util.ConsistencyUtil.output;
@@ -40,12 +43,23 @@ import static org.atlanmod.consistency.util.ConsistencyUtil.output;
  */
 public class SharedResource extends ResourceImpl {
 
-    private Map<Id, EObject> contents = Maps.newHashMap();
+    private final ObjectTable<EObject> contents = new ObjectTable<>();
+
+    /**
+     * The other resources whose objects were restored in this one, with their identifiers.
+     */
+    private final BitSet restoredResources = new BitSet();
+    private final ExtentIndex extents = new ExtentIndex();
     private History history;
     private ResourceId rid;
     private NodeId parentNid;// = new NodeId((short) 0);
     private ChangeManager manager;
-    private List<EObjectAdapter> detached = new ArrayList<>();
+    private HybridLogicalClock clock;
+    private final TombstoneStore tombstones = new TombstoneStore();
+    private LwwRegisters registers;
+    private Sequences sequences;
+    private int instances;
+    private Metrics metrics = new Metrics();
 
 
     /*public SharedResource(URI uri) {
@@ -58,9 +72,14 @@ public class SharedResource extends ResourceImpl {
     }
 
     public SharedResource(URI uri, ResourceId rid, NodeId nid) {
+        this(uri, rid, nid, new HybridLogicalClock());
+    }
+
+    public SharedResource(URI uri, ResourceId rid, NodeId nid, HybridLogicalClock clock) {
         super(uri);
         this.rid = rid;
         this.parentNid = nid;
+        this.clock = clock;
         history = new History(this);
         manager = new ChangeManager(history);
     }
@@ -69,19 +88,204 @@ public class SharedResource extends ResourceImpl {
         return parentNid;
     }
 
-    public Map<Id, EObject> contents() {
+    public ResourceId getResourceId() {
+        return rid;
+    }
+
+    /**
+     * @return the hybrid logical clock that stamps the operations of this resource
+     */
+    public HybridLogicalClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return the metrics of the updates of this resource, shared with its node if any
+     */
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enables or disables last-writer-wins registers: when enabled, a received write of a single-valued
+     * feature is skipped if the feature was written later, locally or by another node.
+     *
+     * @see LwwRegisters
+     */
+    public void setLastWriterWins(boolean lastWriterWins) {
+        if (!lastWriterWins) {
+            registers = null;
+        } else if (registers == null) {
+            registers = new LwwRegisters();
+        }
+    }
+
+    /**
+     * @return the last-writer-wins registers of this resource, or {@code null} if they are disabled
+     */
+    public LwwRegisters registers() {
+        return registers;
+    }
+
+    /**
+     * Enables or disables replicated sequences: when enabled, changes of many-valued features designate
+     * their elements by stable identifiers instead of positions, so that concurrent changes converge.
+     * All the nodes sharing the resource must use the same mode.
+     *
+     * @see Sequences
+     */
+    public void setSequences(boolean enabled) {
+        if (!enabled) {
+            sequences = null;
+        } else if (sequences == null) {
+            sequences = new Sequences();
+        }
+    }
+
+    /**
+     * @return the replicated sequences of this resource, or {@code null} if they are disabled
+     */
+    public Sequences sequences() {
+        return sequences;
+    }
+
+    /**
+     * Enables or disables operational transformation: when enabled, a received change of a many-valued
+     * feature designated by positions is transformed against the concurrent local changes before it is
+     * executed. All the nodes sharing the resource must use the same mode.
+     *
+     * @see Transformer
+     */
+    public void setOperationalTransform(boolean enabled) {
+        history.setTransforming(enabled);
+    }
+
+    /**
+     * @return the number of instance identifiers allocated by this resource
+     */
+    public int instances() {
+        return instances;
+    }
+
+    /**
+     * Recovers the state of another resource from one of its checkpoints and the operations it logged
+     * after it. This resource must be empty. The recovered objects keep their identifiers, and the
+     * recovered operations are neither logged nor sent.
+     *
+     * @param checkpoint a checkpoint of the other resource
+     * @param tail       the operations logged by the other resource after {@code checkpoint}
+     */
+    public void recover(Checkpoint checkpoint, List<Operation> tail) {
+        history.replay(() -> {
+            for (Operation each : checkpoint.operations()) {
+                if (each instanceof Attach) {
+                    restore((InstanceId) each.instanceId(), ((Attach) each).getEClass());
+                } else {
+                    execute(each);
+                }
+            }
+            rid.reserveUpTo(checkpoint.instances());
+            instances = Math.max(instances, checkpoint.instances());
+            tail.forEach(this::replay);
+        });
+    }
+
+    /**
+     * Recovers a state from all the operations that led to it, such as the operations read from a
+     * {@link WriteAheadLog}. This resource must be empty, and the recovered operations are neither logged
+     * nor sent. The recovered objects keep their identifiers, so that the operations may come from a
+     * {@link org.atlanmod.consistency.update.Compactor compacted} log.
+     *
+     * @param operations the operations to replay, in order
+     */
+    public void recover(List<Operation> operations) {
+        history.replay(() -> operations.forEach(this::replay));
+    }
+
+    /**
+     * Executes a recovered operation. The object of an {@link Attach} gets the identifier it is attached
+     * with, rather than the next one.
+     */
+    void replay(Operation operation) {
+        if (operation instanceof Batch) {
+            ((Batch) operation).operations().forEach(this::replay);
+        } else if (operation instanceof Attach) {
+            InstanceId oid = (InstanceId) operation.instanceId();
+            restore(oid, ((Attach) operation).getEClass());
+            rid.reserveUpTo(slotOf(oid) + 1);
+            instances = Math.max(instances, slotOf(oid) + 1);
+        } else {
+            execute(operation);
+        }
+    }
+
+    private void restore(InstanceId oid, EClass eClass) {
+        EObject eObject = eClass.getEPackage().getEFactoryInstance().create(eClass);
+        eObject.eAdapters().add(new EObjectAdapter(manager, oid));
+        contents.put(slotOf(oid), eObject);
+        extents.add(slotOf(oid), eObject);
+        restoredResources.set(PackedId.resourceOf(oid.toLong()) & 0xFFFF);
+        getContents().add(eObject);
+    }
+
+    public ObjectTable<EObject> contents() {
         return contents;
     }
 
+    /**
+     * Returns the object of this resource identified by {@code oid}.
+     * Objects are indexed by their local instance number, so identifiers of other resources are
+     * rejected before their number is looked up, unless objects of that resource were recovered.
+     *
+     * @param oid an instance identifier
+     * @return the attached EObject, or {@code null}
+     */
+    public EObject resolve(Id oid) {
+        if (oid == null) {
+            return null;
+        }
+        short resource = PackedId.resourceOf(oid.toLong());
+        if (resource != rid.toInt() && !restoredResources.get(resource & 0xFFFF)) {
+            return null;
+        }
+        return contents.get(slotOf(oid));
+    }
+
+    /**
+     * Returns the attached direct instances of {@code eClass}.
+     */
+    public ExtentIndex.Extent extent(EClass eClass) {
+        return extents.extent(eClass);
+    }
+
+    public ExtentIndex extents() {
+        return extents;
+    }
+
+    private static int slotOf(Id oid) {
+        return PackedId.instanceOf(oid.toLong());
+    }
+
     @Override
     public void attachedHelper(EObject eObject) {
         InstanceId oid;
         EObjectAdapter adapter = adapterFor(eObject);
         if (Objects.isNull(adapter)) {
             oid = rid.nextId();
+            instances = Math.max(instances, slotOf(oid) + 1);
+            tombstones.remove(eObject);
             eObject.eAdapters().add(new EObjectAdapter(manager,oid));
-            contents.put(oid, eObject);
-            history.add(new Attach(oid, eObject.eClass(), parentNid));
+            contents.put(slotOf(oid), eObject);
+            extents.add(slotOf(oid), eObject);
+            Attach attach = new Attach(oid, eObject.eClass(), parentNid);
+            if (eObject.eContainer() == null) {
+                attach.invertedBy(new Detach(oid, parentNid));
+            }
+            history.add(attach);
         } else {
             oid = adapter.id();
             history.basicAdd(new Attach(oid, eObject.eClass(), parentNid));
@@ -96,10 +300,12 @@ public class SharedResource extends ResourceImpl {
         if (Objects.nonNull(adapter)) {
             Id oid = adapter.id();
             //Log.info("--detaching object {0}--", oid);
-            detached.add(adapter);
-            contents.remove(oid);
+            tombstones.put(eObject, oid);
+            if (contents.get(slotOf(oid)) == eObject) {
+                contents.remove(slotOf(oid));
+                extents.remove(slotOf(oid), eObject);
+            }
             eObject.eAdapters().remove(adapter);
-            detached.add(adapter);
             history.add(new Detach(oid, parentNid));
         }
         super.detachedHelper(eObject);
@@ -117,13 +323,23 @@ public class SharedResource extends ResourceImpl {
      * @param operation the Operation to reproduce
      */
     public void execute(Operation operation) {
+        long start = metrics.start();
+        if (operation instanceof Batch) {
+            if (!isApplicable((Batch) operation, new HashSet<>(), new HashSet<>())) {
+                Log.warn("Skipping batch with unknown objects: {0}", operation);
+                return;
+            }
+            batch(() -> ((Batch) operation).operations().forEach(this::execute));
+            metrics.record(Metrics.Stage.APPLY, operation, start);
+            return;
+        }
         Id oid = operation.instanceId();
         EObject eObject;
         // To recreate the object to be attached
         if (operation instanceof Attach) {
             eObject = new CreateEObject(oid, ((Attach) operation).getEClass()).getObject();
         } else {
-            eObject = contents.get(oid);
+            eObject = resolve(oid);
         }
 
         eObject.eSetDeliver(false);
@@ -137,10 +353,94 @@ public class SharedResource extends ResourceImpl {
                 )) {
             history.add(operation);
         }
+        metrics.record(Metrics.Stage.APPLY, operation, start);
+    }
+
+    /**
+     * Runs {@code changes} as a batch: the operations they produce are sent as a single message, and
+     * integrated as a whole by the other nodes.
+     *
+     * @param changes the modifications to group
+     */
+    public void batch(Runnable changes) {
+        history.begin();
+        try {
+            changes.run();
+        } finally {
+            history.commit();
+        }
+    }
+
+    /**
+     * Checks that every operation of a batch applies to an attached object, or to one attached earlier
+     * in the batch, so that a batch is applied either as a whole or not at all.
+     *
+     * @param attached the objects attached earlier in the batch
+     * @param detached the objects detached earlier in the batch
+     */
+    private boolean isApplicable(Batch batch, Set<Long> attached, Set<Long> detached) {
+        for (Operation each : batch.operations()) {
+            if (each instanceof Batch) {
+                if (!isApplicable((Batch) each, attached, detached)) {
+                    return false;
+                }
+            } else if (each instanceof Attach) {
+                attached.add(each.instanceId().toLong());
+                detached.remove(each.instanceId().toLong());
+            } else {
+                if (!isKnown(each.instanceId(), attached, detached)) {
+                    return false;
+                }
+                if (each instanceof FeatureOperation
+                        && !isKnown(((FeatureOperation) each).featureId().asInstanceId(), attached, detached)) {
+                    return false;
+                }
+                if (each instanceof Detach) {
+                    detached.add(each.instanceId().toLong());
+                }
+            }
+        }
+        return true;
     }
 
+    private boolean isKnown(Id oid, Set<Long> attached, Set<Long> detached) {
+        if (oid == null || detached.contains(oid.toLong())) {
+            return false;
+        }
+        return attached.contains(oid.toLong()) || resolve(oid) != null;
+    }
+
+    /**
+     * Undoes a local operation or batch by applying its inverse, in time proportional to the size of the
+     * change. The undoing changes are captured and sent like any other edit; those of a batch are sent
+     * as one batch.
+     *
+     * @param operation an operation of this resource
+     * @throws IllegalArgumentException if the operation cannot be inverted, such as the detachment of an
+     * object, which is undone with the change of its container
+     * @see Operation#inverse()
+     */
     public void cancel(Operation operation) {
+        Operation inverse = operation.inverse();
+        checkArgument(inverse != null, "%s cannot be inverted", operation);
+        undo(inverse);
+    }
 
+    private void undo(Operation inverse) {
+        if (inverse instanceof Batch) {
+            batch(() -> ((Batch) inverse).operations().forEach(this::undo));
+        } else if (inverse instanceof Detach) {
+            // Inverse of the attachment of a root object
+            EObject eObject = resolve(inverse.instanceId());
+            if (eObject != null && eObject.eContainer() == null) {
+                getContents().remove(eObject);
+            }
+        } else {
+            EObject eObject = resolve(inverse.instanceId());
+            if (eObject != null) {
+                inverse.execute(this, eObject);
+            }
+        }
     }
 
     public void broadcast(Operation operation) {
@@ -152,50 +452,51 @@ public class SharedResource extends ResourceImpl {
      * @param message the message to deal with
      */
     public void receive(UpdateMessage message) {
-        Operation operation = null;
-        switch (message.type()) {
-            case Attach:
-                operation = new Attach(message, parentNid);
-                break;
-            case Detach:
-                operation = new Detach(message, parentNid);
-                break;
-            case SetValue:
-                operation = new SetValue((FeatureId) message.featureId(), message.value(), message.oldValue(), parentNid);
-                break;
-            case SetReference:
-                operation = new SetReference((FeatureId) message.featureId(), (Id) message.value(), parentNid);
-                break;
-            case AddReference:
-                operation = new AddReference((FeatureId) message.featureId(), (Id) message.value(), parentNid);
-                break;
-            case Unset:
-                operation = new Unset((FeatureId) message.featureId(), parentNid);
-                break;
-            case AddManyReferences:
-                operation = new AddManyReferences((FeatureId) message.featureId(), (List<Id>) message.value(), parentNid);
-                break;
-            case RemoveManyReferences:
-                operation = new RemoveManyReferences((FeatureId) message.featureId(), (List<Id>) message.value(), parentNid);
-                break;
-            case RemoveReference:
-                operation = new RemoveReference((FeatureId) message.featureId(), (Id) message.value(), parentNid);
-                break;
-            case AddValue:
-                operation = new AddValue((FeatureId) message.featureId(), message.value(), parentNid);
-                break;
-            case AddManyValues:
-                operation = new AddManyValues((FeatureId) message.featureId(), (List<Object>) message.value(), parentNid);
-                break;
-            case RemoveValue:
-                operation = new RemoveValue((FeatureId) message.featureId(), message.value(), parentNid);
-                break;
-            case RemoveManyValues:
-                operation = new RemoveManyValues((FeatureId) message.featureId(), (List<Object>) message.value(), parentNid);
-                break;
+        if (message.timestamp() != 0) {
+            clock.update(message.timestamp());
         }
+        Operation operation = operationFrom(message);
+        if (operation != null) {
+            this.history.integrate(operation, message.getOriginator());
+        }
+    }
 
-        this.history.integrate(operation);
+    /**
+     * Recreates the operation carried by a message, with its timestamp and originator.
+     *
+     * @param message a received message
+     * @return the operation to integrate, or {@code null} if it is a stale register write
+     */
+    private Operation operationFrom(UpdateMessage message) {
+        return accepted(OperationFactory.fromMessage(message, message.getOriginator()), message.getOriginator());
+    }
+
+    /**
+     * Drops the stale register writes of a received operation.
+     *
+     * @return the operation, or {@code null} if it is a stale register write
+     */
+    private Operation accepted(Operation operation, NodeId origin) {
+        if (registers == null) {
+            return operation;
+        }
+        if (operation instanceof Batch) {
+            List<Operation> operations = new ArrayList<>();
+            for (Operation each : ((Batch) operation).operations()) {
+                Operation kept = accepted(each, origin);
+                if (kept != null) {
+                    operations.add(kept);
+                }
+            }
+            Batch batch = new Batch(operations, operation.getOriginator());
+            batch.stamp(operation.timestamp());
+            return batch;
+        }
+        if (!registers.write(operation, origin)) {
+            Log.debug("Skipping stale write: {0}", operation);
+            return null;
+        }
+        return operation;
     }
 
     /**
@@ -206,10 +507,10 @@ public class SharedResource extends ResourceImpl {
      */
 
     public boolean contains(EObject object) {
-        boolean containment = contents.containsValue(object);
+        boolean containment = contents.contains(object);
 
         if (!containment) {
-            for (EObject each : contents.values()) {
+            for (EObject each : contents) {
                 if (each.eContents().contains(object)) {
                     containment = true;
                     break;
@@ -235,7 +536,7 @@ public class SharedResource extends ResourceImpl {
         Log.info("There {0}{1}{2} in the resource :", (plural ? "are " : "is "), contents.size(), (plural ? " different EObjects" : " EObject"));
         Log.info("");
         counter = 1;
-        for (EObject each : contents.values()) {
+        for (EObject each : contents) {
             Log.info("EObject {0} : {1} {2}", counter++, identifierFor(each), each);
 
             if (each instanceof Graph || each instanceof MultiValuesExample) {
@@ -261,14 +562,14 @@ public class SharedResource extends ResourceImpl {
     }
 
     public EObject contentAt(int i) {
-        EObject[] elts = contents.values().toArray(new EObject[0]);
-        List<EObject> objects = new ArrayList<>(Arrays.asList(elts));
-
-        return objects.get(i);
+        return contents.nth(i);
     }
 
-    public List<EObjectAdapter> getDetachments() {
-        return detached;
+    /**
+     * @return the identifiers of the recently detached objects
+     */
+    public TombstoneStore tombstones() {
+        return tombstones;
     }
 
     public class ConsumerThread implements Runnable {
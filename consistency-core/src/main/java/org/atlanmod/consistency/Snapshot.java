@@ -0,0 +1,97 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency;
+
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.update.FeatureTable;
+import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.atlanmod.consistency.util.ConsistencyUtil.identifierFor;
+
+/**
+ * The state of a {@link SharedResource} as of a past operation of its history, see
+ * {@link History#viewAt(int)}.
+ * <p>
+ * The objects of a snapshot are copies that keep the identifiers of the objects of the resource. They
+ * belong to no node, and are meant to be read: changing them does not change the resource.
+ */
+public class Snapshot {
+
+    private final int sequence;
+    private final SharedResource copy;
+
+    Snapshot(int sequence, SharedResource copy) {
+        this.sequence = sequence;
+        this.copy = copy;
+    }
+
+    /**
+     * @return the sequence number of the last operation reflected by this snapshot
+     */
+    public int sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the root objects, read-only
+     */
+    public EList<EObject> getContents() {
+        return ECollections.unmodifiableEList(copy.getContents());
+    }
+
+    /**
+     * @return the copy of the object {@code oid}, or {@code null} if it was not attached
+     */
+    public EObject resolve(Id oid) {
+        return copy.resolve(oid);
+    }
+
+    /**
+     * Returns the value of a feature, in the form of {@link History#valueAt(FeatureId, int)}: the values
+     * of a many-valued feature, and identifiers instead of objects for a reference.
+     */
+    public Object valueOf(FeatureId fid) {
+        EObject eObject = resolve(fid.asInstanceId());
+        if (eObject == null) {
+            return null;
+        }
+        EStructuralFeature feature = FeatureTable.of(eObject.eClass()).entry(fid.toInt()).feature();
+        if (!eObject.eIsSet(feature)) {
+            return feature.isMany() ? Collections.emptyList() : null;
+        }
+        Object value = eObject.eGet(feature);
+        if (!(feature instanceof EReference)) {
+            return feature.isMany() ? Collections.unmodifiableList(new ArrayList<>((List<?>) value)) : value;
+        }
+        if (!feature.isMany()) {
+            return identifierFor((EObject) value);
+        }
+        List<Id> ids = new ArrayList<>();
+        for (Object each : (List<?>) value) {
+            ids.add(identifierFor((EObject) each));
+        }
+        return Collections.unmodifiableList(ids);
+    }
+}
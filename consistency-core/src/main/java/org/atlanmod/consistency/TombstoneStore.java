@@ -0,0 +1,103 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.Id;
+import org.eclipse.emf.ecore.EObject;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The identifiers of recently detached objects, keyed by object identity.
+ * <p>
+ * Detaching an object removes its adapter, and thus its identifier, while notifications referring to it
+ * may still be pending. Tombstones are kept in two generations: the current epoch receives new entries,
+ * and lookups also search the previous one. An epoch ends when it holds {@code capacity} tombstones or is
+ * older than {@code maxAge} milliseconds, which drops the previous generation. A tombstone therefore lives
+ * for at least one full epoch, and the store never holds more than twice its capacity.
+ */
+public class TombstoneStore {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DEFAULT_MAX_AGE = 60_000;
+
+    private final int capacity;
+    private final long maxAge;
+    private final LongSupplier clock;
+
+    private Map<EObject, Id> current = Maps.newIdentityHashMap();
+    private Map<EObject, Id> previous = Maps.newIdentityHashMap();
+    private long epochStart;
+    private long epoch = 0;
+
+    public TombstoneStore() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_AGE, System::currentTimeMillis);
+    }
+
+    public TombstoneStore(int capacity, long maxAge, LongSupplier clock) {
+        checkArgument(capacity > 0, "capacity must be positive: %s", capacity);
+        checkArgument(maxAge > 0, "maxAge must be positive: %s", maxAge);
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.epochStart = clock.getAsLong();
+    }
+
+    public void put(EObject eObject, Id oid) {
+        if (current.size() >= capacity || clock.getAsLong() - epochStart >= maxAge) {
+            advance();
+        }
+        current.put(eObject, oid);
+    }
+
+    /**
+     * Returns the identifier {@code eObject} had when it was detached, or {@code null} if unknown or evicted.
+     */
+    public Id get(EObject eObject) {
+        Id oid = current.get(eObject);
+        return oid != null ? oid : previous.get(eObject);
+    }
+
+    /**
+     * Forgets {@code eObject}, typically because it is attached again.
+     */
+    public void remove(EObject eObject) {
+        current.remove(eObject);
+        previous.remove(eObject);
+    }
+
+    /**
+     * Ends the current epoch, evicting the tombstones of the previous one.
+     */
+    public void advance() {
+        Map<EObject, Id> evicted = previous;
+        evicted.clear();
+        previous = current;
+        current = evicted;
+        epochStart = clock.getAsLong();
+        epoch++;
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return current.size() + previous.size();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.update.Batch;
+import org.atlanmod.consistency.update.FeatureOperation;
+import org.atlanmod.consistency.update.Operation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The versions of the features and objects of a {@link History}.
+ * <p>
+ * The version of a feature is the sequence number, in the {@link OperationLog} of the history, of the last
+ * operation that changed it. The operations of a batch share the sequence number of the batch. The
+ * current version of a feature, its last operation, and whether it changed since a given version are
+ * answered in constant time. Each feature and each object also keeps the sequence numbers of its
+ * operations, so that the operations on an object since a version, or the version of a feature as of a
+ * past sequence number, are found without scanning the history.
+ */
+public class VersionIndex {
+
+    /**
+     * The version of a feature or object that was never changed.
+     */
+    public static final int NONE = -1;
+
+    private final Map<FeatureId, Version> features = Maps.newHashMap();
+    private final Map<Id, Trail> objects = Maps.newHashMap();
+
+    /**
+     * Records {@code operation}, or each operation of a batch, at version {@code sequence}.
+     */
+    public void record(Operation operation, int sequence) {
+        if (operation instanceof Batch) {
+            for (Operation each : ((Batch) operation).operations()) {
+                record(each, sequence);
+            }
+            return;
+        }
+        Id oid;
+        if (operation instanceof FeatureOperation) {
+            FeatureId fid = ((FeatureOperation) operation).featureId();
+            Version version = features.get(fid);
+            if (version == null) {
+                version = new Version();
+                features.put(fid, version);
+            }
+            version.sequence = sequence;
+            version.operation = operation;
+            version.trail.add(sequence);
+            oid = fid.asInstanceId();
+        } else {
+            oid = operation.instanceId();
+        }
+        if (oid != null) {
+            objects.computeIfAbsent(oid, id -> new Trail()).add(sequence);
+        }
+    }
+
+    /**
+     * @return the version of {@code fid}, or {@link #NONE}
+     */
+    public int version(FeatureId fid) {
+        Version version = features.get(fid);
+        return version == null ? NONE : version.sequence;
+    }
+
+    /**
+     * @return the version of {@code fid} as of {@code sequence}, that is the sequence number of the last
+     * operation that changed it up to {@code sequence} included, or {@link #NONE}
+     */
+    public int versionAt(FeatureId fid, int sequence) {
+        Version version = features.get(fid);
+        return version == null ? NONE : version.trail.floor(sequence);
+    }
+
+    /**
+     * @return the sequence numbers of the operations on {@code fid} after {@code version} and up to
+     * {@code sequence} included, in increasing order
+     */
+    public int[] between(FeatureId fid, int version, int sequence) {
+        Version changes = features.get(fid);
+        return changes == null ? new int[0] : changes.trail.between(version, sequence);
+    }
+
+    /**
+     * @return the last operation that changed {@code fid}, or {@code null}
+     */
+    public Operation latest(FeatureId fid) {
+        Version version = features.get(fid);
+        return version == null ? null : version.operation;
+    }
+
+    /**
+     * @return the version of the object {@code oid}, that is of its last operation, or {@link #NONE}
+     */
+    public int version(Id oid) {
+        Trail trail = objects.get(oid);
+        return trail == null ? NONE : trail.last();
+    }
+
+    /**
+     * Checks whether {@code fid} changed after {@code version}, for instance to detect a conflicting write.
+     */
+    public boolean changedSince(FeatureId fid, int version) {
+        return version(fid) > version;
+    }
+
+    public boolean changedSince(Id oid, int version) {
+        return version(oid) > version;
+    }
+
+    /**
+     * @return the sequence numbers of the operations on the object {@code oid} after {@code version}, in
+     * increasing order
+     */
+    public int[] since(Id oid, int version) {
+        Trail trail = objects.get(oid);
+        return trail == null ? new int[0] : trail.since(version);
+    }
+
+    /**
+     * @return the number of features that were changed
+     */
+    public int size() {
+        return features.size();
+    }
+
+    private static class Version {
+        private final Trail trail = new Trail();
+        private int sequence;
+        private Operation operation;
+    }
+
+    /**
+     * The increasing sequence numbers of the operations on an object.
+     */
+    private static class Trail {
+        private int[] sequences = new int[4];
+        private int size;
+
+        void add(int sequence) {
+            if (size > 0 && sequences[size - 1] == sequence) {
+                return;
+            }
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+            }
+            sequences[size++] = sequence;
+        }
+
+        int last() {
+            return sequences[size - 1];
+        }
+
+        int[] since(int version) {
+            return between(version, Integer.MAX_VALUE);
+        }
+
+        int[] between(int version, int sequence) {
+            int from = after(version);
+            int to = after(sequence);
+            return from < to ? Arrays.copyOfRange(sequences, from, to) : new int[0];
+        }
+
+        int floor(int sequence) {
+            int index = after(sequence) - 1;
+            return index < 0 ? NONE : sequences[index];
+        }
+
+        /**
+         * @return the index of the first sequence number greater than {@code sequence}
+         */
+        private int after(int sequence) {
+            int index = Arrays.binarySearch(sequences, 0, size, sequence);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+}
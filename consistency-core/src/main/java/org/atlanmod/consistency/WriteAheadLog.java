@@ -0,0 +1,674 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency;
+
+import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.update.Compactor;
+import org.atlanmod.consistency.update.Operation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A durable, append-only log of the operations of a {@link History}, in a directory of segment files.
+ * <p>
+ * Each operation is written as a record made of its length, a CRC-32 checksum, its sequence number in the
+ * history and its encoding by {@link OperationLog}. Records are buffered and written with a single
+ * {@code fsync} once {@code syncEvery} of them are pending or {@code syncInterval} elapsed since the last
+ * one, whichever comes first, or on {@link #sync()}. The interval is also checked on a background thread,
+ * so that the last records are committed when no operation follows them. An operation may therefore be
+ * lost on a crash until the next group commit.
+ * <p>
+ * A new segment is started when the current one would exceed {@code segmentSize}, and on every opening:
+ * segments are numbered in the order they are created, and {@link #read(Path)} reads them in that order.
+ * A record that is truncated or fails its checksum, as written by an interrupted commit, ends its segment.
+ * <p>
+ * The segments before the current one can be {@link #compact() compacted}, on demand or periodically in
+ * the background: their records are rewritten by the {@link Compactor} into a single segment named after
+ * the range of segments it replaces, which supersedes them once it is complete.
+ * <p>
+ * The last {@link #writeCheckpoint(Checkpoint) checkpoint} of the history is persisted with its log: a
+ * resource is {@link #recover(Path, SharedResource) recovered} from it and the operations logged after
+ * it, and the segments before it can be truncated. A directory holds the log of a single history: a
+ * recovered resource continues its numbering.
+ */
+public class WriteAheadLog implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final int DEFAULT_SYNC_EVERY = 256;
+    public static final long DEFAULT_SYNC_INTERVAL_MS = 10;
+
+    private static final String SUFFIX = ".wal";
+    private static final String PARTIAL = ".tmp";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final int HEADER = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Encoder encoder = new Encoder();
+    private final Object segmentsLock = new Object();
+
+    /**
+     * The last sequence number written in each closed segment, read on first use for the segments of the
+     * previous sessions.
+     */
+    private final Map<Path, Integer> lastSequences = new ConcurrentHashMap<>();
+    private int lastSequence = -1;
+    private volatile int checkpointSequence = -1;
+
+    private int syncEvery = DEFAULT_SYNC_EVERY;
+    private long syncNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SYNC_INTERVAL_MS);
+
+    private int nextSegment;
+    private volatile Path segment;
+    private FileChannel channel;
+    private long segmentBytes;
+
+    /**
+     * Guards the pending records and the current segment, shared with the background commits.
+     */
+    private final Object pendingLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private int unsynced;
+    private long lastSync = System.nanoTime();
+
+    private ScheduledExecutorService compaction;
+    private ScheduledExecutorService commits;
+    private volatile boolean commitsScheduled;
+
+    public WriteAheadLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public WriteAheadLog(Path directory, long segmentSize) {
+        checkArgument(segmentSize > 0, "segmentSize must be positive: %s", segmentSize);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            for (Path each : files(directory)) {
+                nextSegment = Math.max(nextSegment, rangeOf(each)[1] + 1);
+            }
+            Checkpoint checkpoint = readCheckpoint(directory);
+            if (checkpoint != null) {
+                checkpointSequence = checkpoint.sequence();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sets when pending records are committed: after {@code count} records, or {@code interval} after the
+     * last commit. A count of {@code 1} commits every record.
+     */
+    public synchronized void setGroupCommit(int count, long interval, TimeUnit unit) {
+        checkArgument(count > 0, "count must be positive: %s", count);
+        checkArgument(interval >= 0, "interval must not be negative: %s", interval);
+        synchronized (pendingLock) {
+            this.syncEvery = count;
+            this.syncNanos = unit.toNanos(interval);
+        }
+        if (commits != null) {
+            commits.shutdown();
+            commits = null;
+        }
+        commitsScheduled = false;
+    }
+
+    /**
+     * Appends an operation, and commits the pending records if the group is complete.
+     *
+     * @param sequence the sequence number of the operation in its history
+     */
+    public void append(int sequence, Operation operation) {
+        write(sequence, encoder.encode(sequence, operation));
+    }
+
+    /**
+     * Appends an operation already encoded by {@link OperationLog}, without encoding it again.
+     *
+     * @param sequence the sequence number of the operation in its history
+     * @param encoded  the operation, as written by {@link OperationLog#write(Operation, java.io.DataOutput)}
+     */
+    void append(int sequence, ByteBuffer encoded) {
+        write(sequence, encoder.encode(sequence, encoded));
+    }
+
+    private void write(int sequence, ByteBuffer record) {
+        if (!commitsScheduled) {
+            scheduleCommits();
+        }
+        synchronized (pendingLock) {
+            long size = segmentBytes + pending.position();
+            if (channel == null || size > 0 && size + record.remaining() > segmentSize) {
+                rotate();
+            }
+            if (pending.remaining() < record.remaining()) {
+                int capacity = Math.max(pending.capacity() * 2, pending.position() + record.remaining());
+                ByteBuffer larger = ByteBuffer.allocate(capacity);
+                pending.flip();
+                pending = larger.put(pending);
+            }
+            pending.put(record);
+            lastSequence = sequence;
+
+            if (++unsynced >= syncEvery || System.nanoTime() - lastSync >= syncNanos) {
+                sync();
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records and forces them to the storage device.
+     */
+    public void sync() {
+        synchronized (pendingLock) {
+            if (unsynced == 0) {
+                return;
+            }
+            try {
+                pending.flip();
+                while (pending.hasRemaining()) {
+                    segmentBytes += channel.write(pending);
+                }
+                pending.clear();
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            unsynced = 0;
+            lastSync = System.nanoTime();
+        }
+    }
+
+    /**
+     * Commits the pending records every {@code syncInterval} on a background thread, until this log is
+     * closed, unless every record is already committed when appended.
+     */
+    private synchronized void scheduleCommits() {
+        if (commitsScheduled) {
+            return;
+        }
+        commitsScheduled = true;
+        if (syncNanos == 0 || syncEvery == 1) {
+            return;
+        }
+        commits = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "wal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        commits.scheduleWithFixedDelay(() -> {
+            try {
+                synchronized (pendingLock) {
+                    if (System.nanoTime() - lastSync >= syncNanos) {
+                        sync();
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.warn(e);
+            }
+        }, syncNanos, syncNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Deletes the segments before the current one that only hold operations numbered below
+     * {@code sequence}.
+     * <p>
+     * Recovery replays the segments after the persisted checkpoint: only truncate the operations it
+     * reflects.
+     */
+    public void truncate(int sequence) {
+        synchronized (segmentsLock) {
+            try {
+                for (Path each : segments(directory)) {
+                    if (each.equals(segment) || lastSequenceOf(each) >= sequence) {
+                        break;
+                    }
+                    Files.deleteIfExists(each);
+                    lastSequences.remove(each);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Persists {@code checkpoint}, in place of the previous one. The records it reflects are no longer
+     * recovered, nor kept by compactions.
+     */
+    public void writeCheckpoint(Checkpoint checkpoint) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Path partial = directory.resolve(CHECKPOINT + PARTIAL);
+        try {
+            checkpoint.write(new DataOutputStream(bytes));
+            try (FileChannel output = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
+                }
+                output.force(false);
+            }
+            Files.move(partial, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkpointSequence = checkpoint.sequence();
+    }
+
+    /**
+     * @return the segment files of this log, in order
+     */
+    public List<Path> segments() {
+        try {
+            return segments(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compacts the segments before the current one into a single segment. May be called while operations
+     * are appended, from another thread.
+     *
+     * @return the number of records dropped
+     */
+    public synchronized int compact() {
+        try {
+            return compactSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compacts this log every {@code period} on a background thread, until it is closed.
+     */
+    public synchronized void compactEvery(long period, TimeUnit unit) {
+        checkArgument(period > 0, "period must be positive: %s", period);
+        if (compaction != null) {
+            compaction.shutdown();
+        }
+        compaction = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "wal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compaction.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                Log.warn(e);
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (compaction != null) {
+                compaction.shutdownNow();
+                compaction = null;
+            }
+            if (commits != null) {
+                commits.shutdown();
+                commits = null;
+            }
+        }
+        synchronized (pendingLock) {
+            sync();
+            closeSegment();
+        }
+    }
+
+    /**
+     * Reads the operations of all the segments in {@code directory}, in the order they were appended.
+     */
+    public static List<Operation> read(Path directory) {
+        List<Operation> operations = new ArrayList<>();
+        try {
+            for (Path each : segments(directory)) {
+                read(each, (operation, sequence) -> operations.add(operation));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return operations;
+    }
+
+    /**
+     * Reads the checkpoint persisted in {@code directory}.
+     *
+     * @return the checkpoint, or {@code null} if none was persisted
+     */
+    public static Checkpoint readCheckpoint(Path directory) {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return Checkpoint.read(new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recovers {@code resource} from the checkpoint persisted in {@code directory} and the operations
+     * logged after it, or from all the logged operations if no checkpoint was persisted. The history of
+     * {@code resource} then numbers its operations after the logged ones, so that it can be logged to
+     * {@code directory} in turn.
+     *
+     * @param resource an empty resource
+     */
+    public static void recover(Path directory, SharedResource resource) {
+        Checkpoint checkpoint = readCheckpoint(directory);
+        int after = checkpoint == null ? -1 : checkpoint.sequence();
+        List<Operation> tail = new ArrayList<>();
+        int[] last = {after};
+        try {
+            for (Path each : segments(directory)) {
+                read(each, (operation, sequence) -> {
+                    if (sequence > after) {
+                        tail.add(operation);
+                    }
+                    last[0] = Math.max(last[0], sequence);
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (checkpoint == null) {
+            resource.recover(tail);
+        } else {
+            resource.recover(checkpoint, tail);
+        }
+        resource.getHistory().startAt(last[0] + 1);
+    }
+
+    private static void read(Path segment, ObjIntConsumer<Operation> consumer) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (buffer.remaining() >= HEADER) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < Integer.BYTES || length > buffer.remaining()) {
+                Log.warn("Truncated record in {0}", segment);
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                Log.warn("Corrupted record in {0}", segment);
+                break;
+            }
+            ByteBuffer record = buffer.slice();
+            record.limit(length);
+            int sequence = record.getInt();
+            consumer.accept(OperationLog.read(record), sequence);
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private int compactSegments() throws IOException {
+        List<Path> closed = segments(directory);
+        closed.remove(segment);
+        if (closed.isEmpty() || closed.size() == 1 && isCompacted(closed.get(0))) {
+            return 0;
+        }
+
+        int covered = checkpointSequence;
+        int[] records = {0};
+        List<Operation> operations = new ArrayList<>();
+        List<Integer> sequences = new ArrayList<>();
+        for (Path each : closed) {
+            read(each, (operation, sequence) -> {
+                records[0]++;
+                if (sequence > covered) {
+                    operations.add(operation);
+                    sequences.add(sequence);
+                }
+            });
+        }
+        Operation[] retained = operations.toArray(new Operation[0]);
+        Compactor.compact(retained);
+
+        int first = rangeOf(closed.get(0))[0];
+        int end = rangeOf(closed.get(closed.size() - 1))[1];
+        Path compacted = directory.resolve(String.format("%08d-%08d%s", first, end, SUFFIX));
+        Path partial = directory.resolve(compacted.getFileName() + PARTIAL);
+        Encoder encoder = new Encoder();
+        int dropped = records[0] - retained.length;
+        int last = -1;
+        try (FileChannel output = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < retained.length; i++) {
+                if (retained[i] == null) {
+                    dropped++;
+                    continue;
+                }
+                last = sequences.get(i);
+                ByteBuffer record = encoder.encode(last, retained[i]);
+                while (record.hasRemaining()) {
+                    output.write(record);
+                }
+            }
+            output.force(false);
+        }
+        synchronized (segmentsLock) {
+            Files.move(partial, compacted, StandardCopyOption.ATOMIC_MOVE);
+            lastSequences.put(compacted, last);
+            for (Path each : files(directory)) {
+                if (!each.equals(compacted) && covers(compacted, each)) {
+                    Files.deleteIfExists(each);
+                    lastSequences.remove(each);
+                }
+            }
+        }
+        Log.info("Compacted {0} segments into {1}: {2} of {3} records dropped",
+                closed.size(), compacted.getFileName(), dropped, records[0]);
+        return dropped;
+    }
+
+    private void rotate() {
+        sync();
+        closeSegment();
+        if (segment != null) {
+            lastSequences.put(segment, lastSequence);
+        }
+        segment = directory.resolve(String.format("%08d%s", nextSegment++, SUFFIX));
+        try {
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segmentBytes = 0;
+    }
+
+    private int lastSequenceOf(Path segment) throws IOException {
+        Integer last = lastSequences.get(segment);
+        if (last == null) {
+            int[] max = {-1};
+            read(segment, (operation, sequence) -> max[0] = Math.max(max[0], sequence));
+            last = max[0];
+            lastSequences.put(segment, last);
+        }
+        return last;
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        channel = null;
+    }
+
+    /**
+     * @return the segments of {@code directory} that are not superseded by a compacted one, in order
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> files = files(directory);
+        List<Path> segments = new ArrayList<>(files.size());
+        for (Path each : files) {
+            if (files.stream().noneMatch(other -> !other.equals(each) && covers(other, each))) {
+                segments.add(each);
+            }
+        }
+        segments.sort(Comparator.comparingInt(each -> rangeOf(each)[0]));
+        return segments;
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * @return the first and last numbers of the segments written to {@code segment}
+     */
+    private static int[] rangeOf(Path segment) {
+        String name = segment.getFileName().toString();
+        name = name.substring(0, name.length() - SUFFIX.length());
+        int dash = name.indexOf('-');
+        if (dash < 0) {
+            int number = Integer.parseInt(name);
+            return new int[]{number, number};
+        }
+        return new int[]{Integer.parseInt(name.substring(0, dash)), Integer.parseInt(name.substring(dash + 1))};
+    }
+
+    private static boolean isCompacted(Path segment) {
+        return segment.getFileName().toString().indexOf('-') >= 0;
+    }
+
+    private static boolean covers(Path segment, Path other) {
+        int[] range = rangeOf(segment);
+        int[] otherRange = rangeOf(other);
+        return isCompacted(segment) && range[0] <= otherRange[0] && otherRange[1] <= range[1];
+    }
+
+    /**
+     * Encodes records into a reused buffer.
+     */
+    private static class Encoder {
+        private final Scratch scratch = new Scratch();
+        private final DataOutputStream out = new DataOutputStream(scratch);
+        private final CRC32 crc = new CRC32();
+
+        /**
+         * @return the encoded record, valid until the next call
+         */
+        ByteBuffer encode(int sequence, Operation operation) {
+            try {
+                start(sequence);
+                OperationLog.write(operation, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return seal();
+        }
+
+        /**
+         * @return the record of an encoded operation, valid until the next call
+         */
+        ByteBuffer encode(int sequence, ByteBuffer encoded) {
+            try {
+                start(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            scratch.write(encoded.duplicate());
+            return seal();
+        }
+
+        private void start(int sequence) throws IOException {
+            scratch.reset();
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(sequence);
+        }
+
+        private ByteBuffer seal() {
+            ByteBuffer record = scratch.asBuffer();
+            crc.reset();
+            crc.update(scratch.array(), HEADER, record.remaining() - HEADER);
+            record.putInt(0, record.remaining() - HEADER);
+            record.putInt(Integer.BYTES, (int) crc.getValue());
+            return record;
+        }
+    }
+
+    /**
+     * An output stream whose content can be read without being copied.
+     */
+    private static class Scratch extends ByteArrayOutputStream {
+        void write(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            if (count + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + length));
+            }
+            buffer.get(buf, count, length);
+            count += length;
+        }
+
+        ByteBuffer asBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
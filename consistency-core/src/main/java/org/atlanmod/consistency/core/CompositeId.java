@@ -38,7 +38,7 @@ public class CompositeId extends DefaultId implements Id {
 
     @Override
     public int hashCode() {
-        return Objects.hash(high, low);
+        return 31 * (31 + Objects.hashCode(high)) + Objects.hashCode(low);
     }
 
     @Override
@@ -26,4 +26,9 @@ public class DefaultId implements Id {
         return 0;
     }
 
+    @Override
+    public long toLong() {
+        return 0;
+    }
+
 }
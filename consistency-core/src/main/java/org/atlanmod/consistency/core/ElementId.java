@@ -0,0 +1,72 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.core;
+
+/**
+ * The identifier of an element of a replicated sequence: the hybrid logical clock timestamp of its
+ * insertion and the node that inserted it.
+ * <p>
+ * Element identifiers are unique and totally ordered. An element is always greater than the element it
+ * was inserted after, since its insertion happened after.
+ */
+public final class ElementId implements Comparable<ElementId> {
+
+    private final long timestamp;
+    private final int node;
+
+    public ElementId(long timestamp, NodeId node) {
+        this(timestamp, node.toInt());
+    }
+
+    public ElementId(long timestamp, int node) {
+        this.timestamp = timestamp;
+        this.node = node;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public int node() {
+        return node;
+    }
+
+    @Override
+    public int compareTo(ElementId other) {
+        int result = HybridLogicalClock.compare(timestamp, other.timestamp);
+        return result != 0 ? result : Integer.compare(node, other.node);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ElementId)) {
+            return false;
+        }
+        ElementId other = (ElementId) o;
+        return timestamp == other.timestamp && node == other.node;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(timestamp) + node;
+    }
+
+    @Override
+    public String toString() {
+        return HybridLogicalClock.toString(timestamp) + "@" + node;
+    }
+}
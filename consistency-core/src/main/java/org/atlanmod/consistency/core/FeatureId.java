@@ -14,12 +14,31 @@ package org.atlanmod.consistency.core;
 
 public class FeatureId extends CompositeId {
 
+    private final long packed;
+
     protected FeatureId(Id high, Id low) {
         super(high, low);
+        this.packed = PackedId.withFeature(high.toLong(), low.toInt());
     }
 
 
     public Id asInstanceId() {
         return high();
     }
+
+    /**
+     * @return the feature number
+     */
+    @Override
+    public int toInt() {
+        return low().toInt();
+    }
+
+    /**
+     * @return this identifier, packed as described by {@link PackedId}
+     */
+    @Override
+    public long toLong() {
+        return packed;
+    }
 }
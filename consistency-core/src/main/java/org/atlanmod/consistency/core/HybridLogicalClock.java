@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ */
+
+package org.atlanmod.consistency.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A hybrid logical clock (HLC).
+ * <p>
+ * Timestamps combine the physical time in milliseconds (high 48 bits) with a logical counter (low 16
+ * bits), so that they can be compared as plain {@code long}s. They never go backwards on a node, and a
+ * timestamp issued after receiving a remote one is always greater than it, without any coordination
+ * between nodes. When the logical counter overflows, it carries into the physical part.
+ * <p>
+ * The timestamp {@code 0} is never issued and denotes the absence of a timestamp.
+ */
+public class HybridLogicalClock {
+
+    private static final int LOGICAL_BITS = 16;
+    private static final long LOGICAL_MASK = (1L << LOGICAL_BITS) - 1;
+
+    private final AtomicLong last = new AtomicLong();
+    private final LongSupplier physicalClock;
+
+    public HybridLogicalClock() {
+        this(System::currentTimeMillis);
+    }
+
+    public HybridLogicalClock(LongSupplier physicalClock) {
+        this.physicalClock = physicalClock;
+    }
+
+    /**
+     * Returns a timestamp for a local or send event.
+     */
+    public long now() {
+        long wall = physicalClock.getAsLong() << LOGICAL_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = wall > previous ? wall : previous + 1;
+        } while (!last.compareAndSet(previous, next));
+        return next;
+    }
+
+    /**
+     * Merges a remote timestamp into this clock, for a receive event.
+     *
+     * @param remote the timestamp carried by a received message
+     * @return a timestamp greater than both {@code remote} and any timestamp previously issued by this clock
+     */
+    public long update(long remote) {
+        long wall = physicalClock.getAsLong() << LOGICAL_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            long max = Math.max(previous, remote);
+            next = wall > max ? wall : max + 1;
+        } while (!last.compareAndSet(previous, next));
+        return next;
+    }
+
+    /**
+     * @return the last timestamp issued by this clock
+     */
+    public long last() {
+        return last.get();
+    }
+
+    public static long physical(long timestamp) {
+        return timestamp >>> LOGICAL_BITS;
+    }
+
+    public static int logical(long timestamp) {
+        return (int) (timestamp & LOGICAL_MASK);
+    }
+
+    public static int compare(long left, long right) {
+        return Long.compare(left, right);
+    }
+
+    public static String toString(long timestamp) {
+        return physical(timestamp) + "." + logical(timestamp);
+    }
+}
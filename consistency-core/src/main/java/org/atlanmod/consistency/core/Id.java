@@ -18,4 +18,6 @@ public interface Id {
 
     int toInt();
 
+    long toLong();
+
 }
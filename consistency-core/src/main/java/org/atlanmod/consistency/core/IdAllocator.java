@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ */
+
+package org.atlanmod.consistency.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A lock-free allocator of {@code int} identifiers.
+ * <p>
+ * Each thread leases a block of contiguous identifiers with a single CAS on a shared counter, and then
+ * hands out identifiers from its block without any synchronization. A thread that allocates alone
+ * receives consecutive identifiers, starting at {@code 0}.
+ */
+public class IdAllocator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final int blockSize;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(this::newBlock);
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicInteger threads = new AtomicInteger();
+
+    public IdAllocator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(int blockSize) {
+        checkArgument(blockSize > 0, "Block size must be positive: %s", blockSize);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns an identifier that has never been returned by this allocator.
+     *
+     * @throws IllegalStateException if the identifier space is exhausted
+     */
+    public int next() {
+        Block block = blocks.get();
+        if (block.next == block.limit) {
+            lease(block);
+        }
+        return block.next++;
+    }
+
+    /**
+     * Makes the identifiers below {@code limit} unavailable, so that the next identifiers allocated by the
+     * calling thread start at {@code limit} or above. Blocks already leased by other threads are kept.
+     */
+    public void reserveUpTo(int limit) {
+        next.accumulateAndGet(limit, Math::max);
+        Block block = blocks.get();
+        if (block.next < limit) {
+            block.next = block.limit;
+        }
+    }
+
+    public Statistics statistics() {
+        return new Statistics(leases.get(), leases.get() * blockSize, retries.get(), threads.get());
+    }
+
+    private void lease(Block block) {
+        int start;
+        while (true) {
+            start = next.get();
+            if (start > Integer.MAX_VALUE - blockSize) {
+                throw new IllegalStateException("Identifier space exhausted");
+            }
+            if (next.compareAndSet(start, start + blockSize)) {
+                break;
+            }
+            retries.incrementAndGet();
+        }
+        leases.incrementAndGet();
+        block.next = start;
+        block.limit = start + blockSize;
+    }
+
+    private Block newBlock() {
+        threads.incrementAndGet();
+        return new Block();
+    }
+
+    /**
+     * The range of identifiers currently leased by a thread.
+     */
+    private static class Block {
+        private int next;
+        private int limit;
+    }
+
+    /**
+     * A snapshot of the activity of an {@link IdAllocator}.
+     */
+    public static class Statistics {
+        private final long leases;
+        private final long reserved;
+        private final long retries;
+        private final int threads;
+
+        Statistics(long leases, long reserved, long retries, int threads) {
+            this.leases = leases;
+            this.reserved = reserved;
+            this.retries = retries;
+            this.threads = threads;
+        }
+
+        /**
+         * @return the number of blocks leased so far
+         */
+        public long leases() {
+            return leases;
+        }
+
+        /**
+         * @return the number of identifiers reserved by the leased blocks
+         */
+        public long reserved() {
+            return reserved;
+        }
+
+        /**
+         * @return the number of failed CAS attempts while leasing blocks
+         */
+        public long retries() {
+            return retries;
+        }
+
+        /**
+         * @return the number of threads that allocated identifiers
+         */
+        public int threads() {
+            return threads;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "leases=" + leases +
+                    ", reserved=" + reserved +
+                    ", retries=" + retries +
+                    ", threads=" + threads +
+                    '}';
+        }
+    }
+}
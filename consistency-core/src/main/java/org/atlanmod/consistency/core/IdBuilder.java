@@ -11,21 +11,78 @@
 
 package org.atlanmod.consistency.core;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class IdBuilder {
 
-    private static short lastRID = 0;
+    private static final AtomicInteger lastRID = new AtomicInteger();
+
+    /**
+     * Shared instances for the small values used as feature numbers.
+     */
+    private static final Id[] SMALL_SHORTS = new Id[128];
+
+    /**
+     * The resource identifiers of decoded identifiers, by resource number, created on first use.
+     */
+    private static final AtomicReferenceArray<ResourceId> DECODED_RESOURCES = new AtomicReferenceArray<>(1 << Short.SIZE);
+
+    static {
+        for (short s = 0; s < SMALL_SHORTS.length; s++) {
+            SMALL_SHORTS[s] = new ShortId(s);
+        }
+    }
 
     public static Id fromShort(short s) {
-        return new ShortId(s);
+        return s >= 0 && s < SMALL_SHORTS.length ? SMALL_SHORTS[s] : new ShortId(s);
     }
 
     public static Id fromInt(int i) {
         return new IntegerId(i);
     }
 
+    /**
+     * Rebuilds an instance identifier from its packed form.
+     *
+     * @see PackedId
+     */
+    public static InstanceId instanceFromLong(long packed) {
+        return new InstanceId(decodedResource(PackedId.resourceOf(packed)), new IntegerId(PackedId.instanceOf(packed)));
+    }
+
+    /**
+     * Returns the resource identifier shared by the identifiers decoded in the resource {@code s}. Its
+     * allocator is not the one of the resource, and is not meant to create identifiers.
+     */
+    private static ResourceId decodedResource(short s) {
+        int index = s & 0xFFFF;
+        ResourceId rid = DECODED_RESOURCES.get(index);
+        if (rid == null) {
+            DECODED_RESOURCES.compareAndSet(index, null, new ResourceId(s));
+            rid = DECODED_RESOURCES.get(index);
+        }
+        return rid;
+    }
+
+    /**
+     * Rebuilds a feature identifier from its packed form.
+     *
+     * @see PackedId
+     */
+    public static FeatureId featureFromLong(long packed) {
+        return instanceFromLong(packed).withFeature(PackedId.featureOf(packed));
+    }
+
+    /**
+     * Rebuilds a resource identifier, with an allocator of its own.
+     */
+    public static ResourceId resourceFromShort(short s) {
+        return new ResourceId(s);
+    }
+
     public static ResourceId generateRID(){
-        return new ResourceId(lastRID++);
+        return new ResourceId((short) lastRID.getAndIncrement());
     }
 
 /*    public Id generate() {
@@ -15,13 +15,55 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 
 public class InstanceId extends CompositeId {
 
+    private final long packed;
+
+    /**
+     * Flyweight feature identifiers of this instance, indexed by feature number and created on demand.
+     */
+    private FeatureId[] features;
+
     protected InstanceId(Id high, Id low) {
         super(high, low);
+        this.packed = PackedId.pack((short) high.toInt(), low.toInt());
     }
 
     public FeatureId withFeature(EStructuralFeature feature) {
-        assert feature.getFeatureID() <= Short.MAX_VALUE;
+        return withFeature(feature.getFeatureID());
+    }
+
+    public FeatureId withFeature(int featureId) {
+        assert featureId >= 0 && featureId <= Short.MAX_VALUE;
+
+        FeatureId[] cache = features;
+        if (cache == null || cache.length <= featureId) {
+            cache = new FeatureId[featureId + 1];
+            if (features != null) {
+                System.arraycopy(features, 0, cache, 0, features.length);
+            }
+            features = cache;
+        }
+
+        FeatureId fid = cache[featureId];
+        if (fid == null) {
+            fid = new FeatureId(this, IdBuilder.fromShort((short) featureId));
+            cache[featureId] = fid;
+        }
+        return fid;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof InstanceId) {
+            return packed == ((InstanceId) obj).packed;
+        }
+        return super.equals(obj);
+    }
 
-        return new FeatureId(this, IdBuilder.fromShort((short) feature.getFeatureID()));
+    /**
+     * @return this identifier, packed as described by {@link PackedId}
+     */
+    @Override
+    public long toLong() {
+        return packed;
     }
 }
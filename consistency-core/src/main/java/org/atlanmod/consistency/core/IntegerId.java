@@ -11,8 +11,6 @@
 
 package org.atlanmod.consistency.core;
 
-import java.util.Objects;
-
 public class IntegerId extends DefaultId implements Id {
     protected final int id;
 
@@ -35,7 +33,7 @@ public class IntegerId extends DefaultId implements Id {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return 31 + id;
     }
 
     @Override
@@ -47,4 +45,9 @@ public class IntegerId extends DefaultId implements Id {
     public int toInt() {
         return id;
     }
+
+    @Override
+    public long toLong() {
+        return id;
+    }
 }
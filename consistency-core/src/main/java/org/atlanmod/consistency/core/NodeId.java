@@ -11,15 +11,17 @@
 
 package org.atlanmod.consistency.core;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class NodeId extends ShortId {
 
-    private short lastId = 0;
+    private final AtomicInteger lastId = new AtomicInteger();
 
     public NodeId(short s) {
         super(s);
     }
 
     public ResourceId nextRID() {
-        return new ResourceId(lastId++);
+        return new ResourceId((short) lastId.getAndIncrement());
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ */
+
+package org.atlanmod.consistency.core;
+
+/**
+ * Primitive encoding of instance and feature identifiers in a single {@code long}.
+ * <pre>
+ *  63        48 47                           16 15        0
+ * +------------+-------------------------------+-----------+
+ * |  resource  |           instance            |  feature  |
+ * +------------+-------------------------------+-----------+
+ * </pre>
+ * The field widths are the ones of {@link ResourceId} (short), of the instance counter (int) and of
+ * feature ids (short), so the encoding is lossless. The feature field stores {@code featureId + 1}:
+ * a value of {@code 0} denotes an instance identifier.
+ */
+public final class PackedId {
+
+    private static final int RESOURCE_SHIFT = 48;
+    private static final int INSTANCE_SHIFT = 16;
+    private static final long FEATURE_MASK = 0xFFFFL;
+    private static final long INSTANCE_MASK = 0xFFFFFFFFL;
+
+    private PackedId() {
+    }
+
+    public static long pack(short resource, int instance) {
+        return ((long) resource << RESOURCE_SHIFT) | ((instance & INSTANCE_MASK) << INSTANCE_SHIFT);
+    }
+
+    public static long withFeature(long id, int feature) {
+        assert feature >= 0 && feature < FEATURE_MASK;
+
+        return asInstance(id) | (feature + 1);
+    }
+
+    public static long asInstance(long id) {
+        return id & ~FEATURE_MASK;
+    }
+
+    public static short resourceOf(long id) {
+        return (short) (id >>> RESOURCE_SHIFT);
+    }
+
+    public static int instanceOf(long id) {
+        return (int) (id >>> INSTANCE_SHIFT);
+    }
+
+    /**
+     * @return the feature number, or {@code -1} if {@code id} is an instance identifier
+     */
+    public static int featureOf(long id) {
+        return (int) (id & FEATURE_MASK) - 1;
+    }
+
+    public static boolean isFeature(long id) {
+        return (id & FEATURE_MASK) != 0;
+    }
+
+    public static int hash(long id) {
+        return Long.hashCode(id);
+    }
+
+    public static String toString(long id) {
+        String instance = "{[" + resourceOf(id) + "],[" + instanceOf(id) + "]}";
+        return isFeature(id) ? "{" + instance + ",[" + featureOf(id) + "]}" : instance;
+    }
+}
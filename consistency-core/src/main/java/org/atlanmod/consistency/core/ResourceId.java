@@ -13,13 +13,27 @@ package org.atlanmod.consistency.core;
 
 public class ResourceId extends ShortId {
 
-    private int lastId = 0;
+    private final IdAllocator allocator = new IdAllocator();
 
     protected ResourceId(short s) {
         super(s);
     }
 
+    /**
+     * Creates a new instance identifier in this resource. Safe to call from several threads.
+     */
     public InstanceId nextId() {
-        return new InstanceId(this, new IntegerId(lastId++));
+        return new InstanceId(this, new IntegerId(allocator.next()));
+    }
+
+    /**
+     * Skips the instance numbers below {@code limit}, see {@link IdAllocator#reserveUpTo(int)}.
+     */
+    public void reserveUpTo(int limit) {
+        allocator.reserveUpTo(limit);
+    }
+
+    public IdAllocator.Statistics allocatorStatistics() {
+        return allocator.statistics();
     }
 }
@@ -11,8 +11,6 @@
 
 package org.atlanmod.consistency.core;
 
-import java.util.Objects;
-
 public class ShortId extends DefaultId implements Id {
     protected final short id;
 
@@ -42,11 +40,16 @@ public class ShortId extends DefaultId implements Id {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return 31 + id;
     }
 
     @Override
     public int toInt() {
         return id;
     }
+
+    @Override
+    public long toLong() {
+        return id;
+    }
 }
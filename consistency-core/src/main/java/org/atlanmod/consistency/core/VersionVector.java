@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ */
+
+package org.atlanmod.consistency.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable map from node numbers to hybrid logical clock timestamps: for each node, the timestamp of
+ * the last operation of that node integrated by the owner of the vector.
+ * <p>
+ * Vectors are small, as they only hold the nodes that were heard of, and are kept sorted by node.
+ */
+public final class VersionVector implements Serializable {
+
+    public static final VersionVector EMPTY = new VersionVector(new int[0], new long[0]);
+
+    private final int[] nodes;
+    private final long[] timestamps;
+
+    private VersionVector(int[] nodes, long[] timestamps) {
+        this.nodes = nodes;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * @return the timestamp recorded for {@code node}, or {@code 0} if none
+     */
+    public long get(int node) {
+        int index = Arrays.binarySearch(nodes, node);
+        return index < 0 ? 0 : timestamps[index];
+    }
+
+    /**
+     * Returns a vector recording {@code timestamp} for {@code node}, unless a later one is already recorded.
+     */
+    public VersionVector with(int node, long timestamp) {
+        int index = Arrays.binarySearch(nodes, node);
+        if (index >= 0) {
+            if (timestamps[index] >= timestamp) {
+                return this;
+            }
+            long[] updated = timestamps.clone();
+            updated[index] = timestamp;
+            return new VersionVector(nodes, updated);
+        }
+        int insertion = -index - 1;
+        int[] newNodes = new int[nodes.length + 1];
+        long[] newTimestamps = new long[nodes.length + 1];
+        System.arraycopy(nodes, 0, newNodes, 0, insertion);
+        System.arraycopy(timestamps, 0, newTimestamps, 0, insertion);
+        newNodes[insertion] = node;
+        newTimestamps[insertion] = timestamp;
+        System.arraycopy(nodes, insertion, newNodes, insertion + 1, nodes.length - insertion);
+        System.arraycopy(timestamps, insertion, newTimestamps, insertion + 1, nodes.length - insertion);
+        return new VersionVector(newNodes, newTimestamps);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < nodes.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(nodes[i]).append('=').append(HybridLogicalClock.toString(timestamps[i]));
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -26,14 +26,20 @@ import org.eclipse.emf.ecore.EClass;
 public class AbstractUpdateMessage implements UpdateMessage {
     private final MessageType type;
     private final NodeId originator;
+    private final long timestamp;
 
     public AbstractUpdateMessage(MessageType type) {
         this(type, new NodeId((short) 0));
     }
 
     public AbstractUpdateMessage(MessageType type, NodeId originator) {
+        this(type, originator, 0);
+    }
+
+    public AbstractUpdateMessage(MessageType type, NodeId originator, long timestamp) {
         this.type = type;
         this.originator = originator;
+        this.timestamp = timestamp;
     }
 
     @Override
@@ -80,4 +86,9 @@ public class AbstractUpdateMessage implements UpdateMessage {
     public NodeId getOriginator() {
         return this.originator;
     }
+
+    @Override
+    public long timestamp() {
+        return this.timestamp;
+    }
 }
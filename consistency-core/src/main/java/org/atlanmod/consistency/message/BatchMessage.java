@@ -0,0 +1,39 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.message;
+
+import org.atlanmod.consistency.core.NodeId;
+
+import java.util.List;
+
+/**
+ * A message carrying the messages of the operations of a batch, under a single header.
+ */
+public class BatchMessage extends AbstractUpdateMessage {
+    private final List<UpdateMessage> messages;
+
+    public BatchMessage(List<UpdateMessage> messages, NodeId originator, long timestamp) {
+        super(MessageType.Batch, originator, timestamp);
+        this.messages = messages;
+    }
+
+    public List<UpdateMessage> messages() {
+        return messages;
+    }
+
+    @Override
+    public Object value() {
+        return messages;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.message;
+
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+
+/**
+ * A message carrying an operation on an element of a replicated sequence.
+ */
+public class ElementMessage extends ValueMessage {
+    private final ElementId anchor;
+    private final ElementId element;
+    private final ElementId previous;
+
+    public ElementMessage(MessageType type, FeatureId featureId, ElementId anchor, ElementId element, ElementId previous,
+                          Object value, NodeId originator, long timestamp) {
+        super(type, featureId, value, null, originator, timestamp);
+        this.anchor = anchor;
+        this.element = element;
+        this.previous = previous;
+    }
+
+    /**
+     * @return the element after which the element is inserted, or {@code null} for the head
+     */
+    public ElementId anchor() {
+        return anchor;
+    }
+
+    public ElementId element() {
+        return element;
+    }
+
+    /**
+     * @return the element replaced by a moved element
+     */
+    public ElementId previous() {
+        return previous;
+    }
+}
@@ -28,13 +28,13 @@ public class InstanceMessage extends AbstractUpdateMessage {
     private EClass eClass;
 
 
-    public InstanceMessage(MessageType type, Id instanceId, NodeId originator) {
-        super(type, originator);
+    public InstanceMessage(MessageType type, Id instanceId, NodeId originator, long timestamp) {
+        super(type, originator, timestamp);
         this.instanceId = instanceId;
     }
 
-    public InstanceMessage(MessageType type, Id instanceId, EClass eClass, NodeId originator) {
-        this(type, instanceId, originator);
+    public InstanceMessage(MessageType type, Id instanceId, EClass eClass, NodeId originator, long timestamp) {
+        this(type, instanceId, originator, timestamp);
         this.eClass = eClass;
     }
 
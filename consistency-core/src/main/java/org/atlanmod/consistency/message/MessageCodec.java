@@ -0,0 +1,332 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency.message;
+
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.IntegerId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.ShortId;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary encoding of the {@link UpdateMessage}s.
+ * <p>
+ * A message starts with its type, originator and timestamp, followed by the fields of its type. The
+ * messages of a batch share its originator and timestamp: they only start with their type.
+ * Identifiers are written in their packed form, and values are tagged with their type; the values of
+ * other types are written with Java serialization. The context of a {@link ValueMessage} is not encoded.
+ */
+public final class MessageCodec {
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte SHORT = 3;
+    private static final byte BYTE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte CHAR = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+    private static final byte INSTANCE_ID = 10;
+    private static final byte FEATURE_ID = 11;
+    private static final byte INTEGER_ID = 12;
+    private static final byte SHORT_ID = 13;
+    private static final byte ELEMENT_ID = 14;
+    private static final byte LIST = 15;
+    private static final byte INT_ARRAY = 16;
+    private static final byte SERIALIZED = 17;
+
+    private static final short NO_NODE = Short.MIN_VALUE;
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private MessageCodec() {
+    }
+
+    public static void encode(UpdateMessage message, DataOutput out) {
+        try {
+            out.writeByte(message.type().ordinal());
+            NodeId originator = message.getOriginator();
+            out.writeShort(originator == null ? NO_NODE : originator.toInt());
+            out.writeLong(message.timestamp());
+            encodeFields(message, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void encodeFields(UpdateMessage message, DataOutput out) throws IOException {
+        switch (message.type()) {
+            case Attach:
+                writeValue(message.instanceId(), out);
+                EClass eClass = message.getEClass();
+                writeString(eClass == null ? null : eClass.getEPackage().getNsURI(), out);
+                writeString(eClass == null ? null : eClass.getName(), out);
+                break;
+            case Detach:
+                writeValue(message.instanceId(), out);
+                break;
+            case Batch:
+                List<UpdateMessage> messages = ((BatchMessage) message).messages();
+                out.writeInt(messages.size());
+                for (UpdateMessage each : messages) {
+                    out.writeByte(each.type().ordinal());
+                    encodeFields(each, out);
+                }
+                break;
+            case InsertElement:
+            case RemoveElement:
+            case MoveElement:
+                ElementMessage element = (ElementMessage) message;
+                writeValue(element.featureId(), out);
+                writeValue(element.anchor(), out);
+                writeValue(element.element(), out);
+                writeValue(element.previous(), out);
+                writeValue(element.value(), out);
+                break;
+            default:
+                writeValue(message.featureId(), out);
+                writeValue(message.value(), out);
+                writeValue(message.oldValue(), out);
+                break;
+        }
+    }
+
+    /**
+     * Decodes a message from the current position of {@code buffer}, and advances it past the message.
+     */
+    public static UpdateMessage decode(ByteBuffer buffer) {
+        MessageType type = TYPES[buffer.get()];
+        short node = buffer.getShort();
+        NodeId originator = node == NO_NODE ? null : new NodeId(node);
+        long timestamp = buffer.getLong();
+        return decodeFields(type, originator, timestamp, buffer);
+    }
+
+    private static UpdateMessage decodeFields(MessageType type, NodeId originator, long timestamp, ByteBuffer buffer) {
+        switch (type) {
+            case Attach:
+                Id oid = (Id) readValue(buffer);
+                String nsURI = readString(buffer);
+                String name = readString(buffer);
+                return new InstanceMessage(type, oid, eClassOf(nsURI, name), originator, timestamp);
+            case Detach:
+                return new InstanceMessage(type, (Id) readValue(buffer), originator, timestamp);
+            case Batch:
+                int size = buffer.getInt();
+                List<UpdateMessage> messages = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    messages.add(decodeFields(TYPES[buffer.get()], originator, timestamp, buffer));
+                }
+                return new BatchMessage(messages, originator, timestamp);
+            case InsertElement:
+            case RemoveElement:
+            case MoveElement:
+                FeatureId fid = (FeatureId) readValue(buffer);
+                ElementId anchor = (ElementId) readValue(buffer);
+                ElementId element = (ElementId) readValue(buffer);
+                ElementId previous = (ElementId) readValue(buffer);
+                return new ElementMessage(type, fid, anchor, element, previous, readValue(buffer), originator, timestamp);
+            default:
+                FeatureId featureId = (FeatureId) readValue(buffer);
+                Object value = readValue(buffer);
+                return new ValueMessage(type, featureId, value, readValue(buffer), originator, timestamp);
+        }
+    }
+
+    private static void writeValue(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof InstanceId) {
+            out.writeByte(INSTANCE_ID);
+            out.writeLong(((InstanceId) value).toLong());
+        } else if (value instanceof FeatureId) {
+            out.writeByte(FEATURE_ID);
+            out.writeLong(((FeatureId) value).toLong());
+        } else if (value instanceof IntegerId) {
+            out.writeByte(INTEGER_ID);
+            out.writeInt(((IntegerId) value).toInt());
+        } else if (value instanceof ShortId) {
+            out.writeByte(SHORT_ID);
+            out.writeShort(((ShortId) value).toInt());
+        } else if (value instanceof ElementId) {
+            out.writeByte(ELEMENT_ID);
+            out.writeLong(((ElementId) value).timestamp());
+            out.writeInt(((ElementId) value).node());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object each : list) {
+                writeValue(each, out);
+            }
+        } else if (value instanceof int[]) {
+            int[] array = (int[]) value;
+            out.writeByte(INT_ARRAY);
+            out.writeInt(array.length);
+            for (int each : array) {
+                out.writeInt(each);
+            }
+        } else if (value instanceof Serializable) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            out.writeByte(SERIALIZED);
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        } else {
+            throw new IllegalArgumentException("Cannot encode " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case SHORT:
+                return buffer.getShort();
+            case BYTE:
+                return buffer.get();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case CHAR:
+                return buffer.getChar();
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case STRING:
+                return readString(buffer);
+            case INSTANCE_ID:
+                return IdBuilder.instanceFromLong(buffer.getLong());
+            case FEATURE_ID:
+                return IdBuilder.featureFromLong(buffer.getLong());
+            case INTEGER_ID:
+                return IdBuilder.fromInt(buffer.getInt());
+            case SHORT_ID:
+                return IdBuilder.fromShort(buffer.getShort());
+            case ELEMENT_ID:
+                long timestamp = buffer.getLong();
+                return new ElementId(timestamp, buffer.getInt());
+            case LIST:
+                int size = buffer.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            case INT_ARRAY:
+                int[] array = new int[buffer.getInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = buffer.getInt();
+                }
+                return array;
+            case SERIALIZED:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objects.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            default:
+                throw new IllegalStateException("Unknown value tag: " + tag);
+        }
+    }
+
+    private static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static EClass eClassOf(String nsURI, String name) {
+        if (nsURI == null) {
+            return null;
+        }
+        EPackage ePackage = EPackage.Registry.INSTANCE.getEPackage(nsURI);
+        EClassifier classifier = ePackage == null ? null : ePackage.getEClassifier(name);
+        return classifier instanceof EClass ? (EClass) classifier : null;
+    }
+}
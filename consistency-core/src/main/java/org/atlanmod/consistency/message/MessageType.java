@@ -32,5 +32,10 @@ public enum MessageType {
     AddManyValues,
     RemoveValue,
     RemoveManyValues,
-    Unset
+    MoveValue,
+    InsertElement,
+    RemoveElement,
+    MoveElement,
+    Unset,
+    Batch
 }
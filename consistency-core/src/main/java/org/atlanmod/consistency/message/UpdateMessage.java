@@ -40,4 +40,9 @@ public interface UpdateMessage extends Serializable {
     EClass getEClass();
 
     NodeId getOriginator();
+
+    /**
+     * @return the hybrid logical clock timestamp of the operation carried by this message
+     */
+    long timestamp();
 }
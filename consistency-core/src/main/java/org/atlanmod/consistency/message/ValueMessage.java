@@ -17,6 +17,7 @@ package org.atlanmod.consistency.message;
 import org.atlanmod.consistency.core.FeatureId;
 import org.atlanmod.consistency.core.Id;
 import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.VersionVector;
 
 /**
  * Created on 17/03/2017.
@@ -27,9 +28,10 @@ public class ValueMessage extends AbstractUpdateMessage {
     private final Object value;
     private final Object previous;
     private final FeatureId featureId;
+    private VersionVector context;
 
-    public ValueMessage(MessageType type, FeatureId featureId, Object value, Object previous, NodeId originator) {
-        super(type, originator);
+    public ValueMessage(MessageType type, FeatureId featureId, Object value, Object previous, NodeId originator, long timestamp) {
+        super(type, originator, timestamp);
         this.featureId = featureId;
         this.value = value;
         this.previous = previous;
@@ -49,4 +51,16 @@ public class ValueMessage extends AbstractUpdateMessage {
     public Object oldValue() {
         return previous;
     }
+
+    /**
+     * @return the operations the sender had integrated when it issued a positional operation, or
+     * {@code null} if not recorded
+     */
+    public VersionVector context() {
+        return context;
+    }
+
+    public void setContext(VersionVector context) {
+        this.context = context;
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency.metrics;
+
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.update.Operation;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counters and latency histograms of the stages an update goes through, broken down by
+ * {@link MessageType}.
+ * <p>
+ * Metrics are disabled by default. A disabled registry costs a field read per stage: {@link #start()}
+ * does not read the clock, and {@link #record(Stage, MessageType, long)} returns immediately. Histograms
+ * are allocated on first use.
+ */
+public class Metrics {
+
+    /**
+     * The stages of the life of an update.
+     */
+    public enum Stage {
+        /**
+         * A local change is turned into an operation.
+         */
+        CAPTURE,
+        /**
+         * An operation is logged and queued for sending.
+         */
+        ENQUEUE,
+        /**
+         * A message is published.
+         */
+        SEND,
+        /**
+         * A received message is integrated.
+         */
+        RECEIVE,
+        /**
+         * An operation is applied to the resource.
+         */
+        APPLY
+    }
+
+    /**
+     * The type of operations without a message type of their own.
+     */
+    private static final int OTHER = MessageType.values().length;
+
+    private final AtomicReferenceArray<LatencyHistogram> histograms =
+            new AtomicReferenceArray<>(Stage.values().length * (OTHER + 1));
+
+    private volatile boolean enabled;
+    private volatile long since = System.nanoTime();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            since = System.nanoTime();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the current time to pass to {@code record}, or {@code 0} if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the duration of a stage, started at {@code start}.
+     */
+    public void record(Stage stage, MessageType type, long start) {
+        if (enabled && start != 0) {
+            histogram(stage, type == null ? OTHER : type.ordinal()).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the duration of a stage, started at {@code start}, under the message type of {@code operation}.
+     */
+    public void record(Stage stage, Operation operation, long start) {
+        record(stage, operation.type(), start);
+    }
+
+    /**
+     * @return the durations of {@code stage} for {@code type}, or an empty histogram
+     */
+    public LatencyHistogram histogram(Stage stage, MessageType type) {
+        LatencyHistogram histogram = histograms.get(indexOf(stage, type.ordinal()));
+        return histogram == null ? new LatencyHistogram() : histogram;
+    }
+
+    /**
+     * @return the durations of {@code stage} for all types
+     */
+    public LatencyHistogram histogram(Stage stage) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (int i = 0; i <= OTHER; i++) {
+            LatencyHistogram each = histograms.get(indexOf(stage, i));
+            if (each != null) {
+                merged.add(each);
+            }
+        }
+        return merged;
+    }
+
+    public long count(Stage stage, MessageType type) {
+        return histogram(stage, type).count();
+    }
+
+    public long count(Stage stage) {
+        return histogram(stage).count();
+    }
+
+    /**
+     * @return the number of times {@code stage} was recorded per second, since enabled or reset
+     */
+    public double throughput(Stage stage) {
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return seconds <= 0 ? 0 : count(stage) / seconds;
+    }
+
+    public void reset() {
+        for (int i = 0; i < histograms.length(); i++) {
+            LatencyHistogram each = histograms.get(i);
+            if (each != null) {
+                each.reset();
+            }
+        }
+        since = System.nanoTime();
+    }
+
+    private LatencyHistogram histogram(Stage stage, int type) {
+        int index = indexOf(stage, type);
+        LatencyHistogram histogram = histograms.get(index);
+        if (histogram == null) {
+            histograms.compareAndSet(index, null, new LatencyHistogram());
+            histogram = histograms.get(index);
+        }
+        return histogram;
+    }
+
+    private static int indexOf(Stage stage, int type) {
+        return stage.ordinal() * (OTHER + 1) + type;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            builder.append(stage).append(": ").append(histogram(stage))
+                    .append(String.format(", %.0f/s", throughput(stage))).append('\n');
+            for (MessageType type : MessageType.values()) {
+                LatencyHistogram each = histograms.get(indexOf(stage, type.ordinal()));
+                if (each != null && each.count() > 0) {
+                    builder.append("  ").append(type).append(": ").append(each).append('\n');
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
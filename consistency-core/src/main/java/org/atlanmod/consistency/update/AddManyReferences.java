@@ -22,10 +22,8 @@ import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,40 +31,42 @@ import java.util.List;
  *
  * @author AtlanMod team.
  */
-public class AddManyReferences extends BaseOperation {
-    private final FeatureId fid;
+public class AddManyReferences extends FeatureOperation {
     private final List<Id> oids;
 
     public AddManyReferences(FeatureId fid, List<Id> oids, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        super(fid, originator);
         this.oids = oids;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " AddManyReferences{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", value=" + oids +
                 '}';
     }
 
     @Override
-    public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.AddManyReferences, fid, oids, null, getOriginator());
+    public MessageType type() {
+        return MessageType.AddManyReferences;
     }
 
     @Override
-    public Id instanceId() {
-        return fid.asInstanceId();
+    public UpdateMessage asMessage() {
+        return new ValueMessage(type(), featureId(), oids, null, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
         List<EObject> objects = new ArrayList<>();
         for (Id id : oids) {
-            objects.add(resource.contents().get(id));
+            objects.add(resource.resolve(id));
         }
-        ((Collection) ((BasicEObjectImpl) eObject).eGet(fid.toInt(),true,true)).addAll(objects);
+        accessor(eObject).list(eObject).addAll(objects);
+    }
+
+    public List<Id> references() {
+        return oids;
     }
 }
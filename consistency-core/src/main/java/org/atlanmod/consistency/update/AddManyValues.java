@@ -22,9 +22,7 @@ import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 
-import java.util.Collection;
 import java.util.List;
 
 /**
@@ -32,36 +30,34 @@ import java.util.List;
  *
  * @author AtlanMod team.
  */
-public class AddManyValues extends BaseOperation {
-    private final FeatureId fid;
+public class AddManyValues extends FeatureOperation {
     private final List<Object> values;
 
     public AddManyValues(FeatureId fid, List<Object> values, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        super(fid, originator);
         this.values = values;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " AddManyValues{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", value=" + values +
                 '}';
     }
 
     @Override
-    public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.AddManyValues, fid, values, null, getOriginator());
+    public MessageType type() {
+        return MessageType.AddManyValues;
     }
 
     @Override
-    public Id instanceId() {
-        return fid.asInstanceId();
+    public UpdateMessage asMessage() {
+        return new ValueMessage(type(), featureId(), values, null, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        ((Collection) ((BasicEObjectImpl) eObject).eGet(fid.toInt(),true,true)).addAll(values);
+        accessor(eObject).list(eObject).addAll(values);
     }
 }
@@ -22,29 +22,24 @@ import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
-
-import java.util.Collection;
 
 /**
  * Created on 10/03/2017.
  *
  * @author AtlanMod team.
  */
-public class AddReference extends BaseOperation {
-    private final FeatureId fid;
+public class AddReference extends FeatureOperation {
     private final Id oid;
 
     public AddReference(FeatureId fid, Id oid, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        super(fid, originator);
         this.oid = oid;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " AddReference{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", oid=" + oid +
                 '}';
     }
@@ -54,15 +49,24 @@ public class AddReference extends BaseOperation {
         return oid;
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.AddReference;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.AddReference, fid, oid, null, getOriginator());
+        return new ValueMessage(type(), featureId(), oid, null, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
 
-        BasicEObjectImpl obj = ((BasicEObjectImpl) (resource.contents().get(fid.asInstanceId())));
-        ((Collection) obj.eGet(fid.toInt(),true,true)).add(eObject); // Add the object to the feature that contains references
+        EObject obj = resource.resolve(featureId().asInstanceId());
+        accessor(obj).list(obj).add(eObject); // Add the object to the feature that contains references
+    }
+
+    public Id reference() {
+        return oid;
     }
 }
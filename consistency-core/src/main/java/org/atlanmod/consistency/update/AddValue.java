@@ -20,21 +20,30 @@ import org.atlanmod.consistency.core.NodeId;
 import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
+
+import java.util.List;
 
 /**
  * Created on 10/03/2017.
  *
  * @author AtlanMod team.
  */
-public class AddValue extends FeatureOperation {
+public class AddValue extends PositionalOperation {
     private final Object value;
+    private final int position;
 
     public AddValue(FeatureId fid, Object value, NodeId originator) {
+        this(fid, value, -1, originator);
+    }
+
+    /**
+     * @param position the position of the inserted value, or {@code -1} to append it
+     */
+    public AddValue(FeatureId fid, Object value, int position, NodeId originator) {
         super(fid, originator);
         this.value = value;
+        this.position = position;
     }
 
     @Override
@@ -42,16 +51,43 @@ public class AddValue extends FeatureOperation {
         return getOriginator() + " AddValue{" +
                 "fid=" + featureId() +
                 ", value=" + value +
+                ", position=" + position +
                 '}';
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.AddValue;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.AddValue, featureId(), value, null, getOriginator());
+        return withContext(new ValueMessage(type(), featureId(), value, position, getOriginator(), timestamp()));
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        ((EList<Object>) ((BasicEObjectImpl)eObject).eGet(featureId().toInt(), true, true)).add(value);
+        List<Object> list = accessor(eObject).list(eObject);
+        if (position < 0) {
+            list.add(value);
+        } else {
+            list.add(Math.min(position, list.size()), value);
+        }
+    }
+
+    public Object value() {
+        return value;
+    }
+
+    /**
+     * @return the position of the inserted value, or {@code -1} if it is appended
+     */
+    public int position() {
+        return position;
+    }
+
+    @Override
+    public boolean isPositional() {
+        return position >= 0;
     }
 }
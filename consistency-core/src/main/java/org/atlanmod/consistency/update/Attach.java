@@ -60,9 +60,14 @@ public class Attach extends BaseOperation {
         return instanceId;
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.Attach;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new InstanceMessage(MessageType.Attach, this.instanceId, this.eClass, getOriginator());
+        return new InstanceMessage(type(), this.instanceId, this.eClass, getOriginator(), timestamp());
     }
 
 
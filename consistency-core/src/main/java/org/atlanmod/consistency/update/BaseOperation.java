@@ -2,15 +2,22 @@ package org.atlanmod.consistency.update;
 
 import org.atlanmod.consistency.SharedResource;
 import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.eclipse.emf.ecore.EObject;
 
+import java.util.function.Supplier;
+
 /**
  * TODO: Implement these methods.
  */
 public abstract class BaseOperation implements Operation {
 
     private final NodeId originator;
+    private long timestamp;
+    private Operation inverse;
+    private Supplier<Operation> inverter;
+    private UpdateMessage message;
 
     public BaseOperation(NodeId originator) {
         this.originator = originator;
@@ -20,6 +27,26 @@ public abstract class BaseOperation implements Operation {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public MessageType type() {
+        return null;
+    }
+
+    @Override
+    public UpdateMessage message() {
+        if (message == null) {
+            message = asMessage();
+        }
+        return message;
+    }
+
+    /**
+     * Discards the message built by {@link #message()}, after a change of the fields it carries.
+     */
+    protected void discardMessage() {
+        message = null;
+    }
+
     @Override
     public void execute(SharedResource resource, EObject eObject) {
 
@@ -29,4 +56,40 @@ public abstract class BaseOperation implements Operation {
     public NodeId getOriginator() {
         return originator;
     }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void stamp(long timestamp) {
+        this.timestamp = timestamp;
+        discardMessage();
+    }
+
+    @Override
+    public Operation inverse() {
+        if (inverter != null) {
+            inverse = inverter.get();
+            inverter = null;
+        }
+        return inverse;
+    }
+
+    /**
+     * Records the operation that undoes this one, as known when it was captured.
+     */
+    public void invertedBy(Operation inverse) {
+        this.inverse = inverse;
+        this.inverter = null;
+    }
+
+    /**
+     * Records how to build the operation that undoes this one, which is only built if asked for.
+     */
+    public void invertedBy(Supplier<Operation> inverter) {
+        this.inverse = null;
+        this.inverter = inverter;
+    }
 }
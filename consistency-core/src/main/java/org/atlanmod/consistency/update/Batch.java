@@ -0,0 +1,101 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.BatchMessage;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.eclipse.emf.ecore.EObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A composite operation, grouping the operations captured between
+ * {@link org.atlanmod.consistency.History#begin()} and {@link org.atlanmod.consistency.History#commit()}.
+ * <p>
+ * A batch is sent as a single message, and its operations are integrated in order, in one step.
+ */
+public class Batch extends BaseOperation {
+    private final List<Operation> operations;
+
+    public Batch(List<Operation> operations, NodeId originator) {
+        super(originator);
+        this.operations = Collections.unmodifiableList(operations);
+    }
+
+    public List<Operation> operations() {
+        return operations;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " Batch{size=" + operations.size() + ", operations=" + operations + '}';
+    }
+
+    @Override
+    public Id instanceId() {
+        return null;
+    }
+
+    /**
+     * Returns the inverse recorded at capture, if any, or else the inverses of the operations of this
+     * batch, in reverse order.
+     */
+    @Override
+    public Operation inverse() {
+        Operation recorded = super.inverse();
+        if (recorded != null) {
+            return recorded;
+        }
+        List<Operation> inverses = new ArrayList<>(operations.size());
+        for (int i = operations.size() - 1; i >= 0; i--) {
+            Operation inverse = operations.get(i).inverse();
+            if (inverse != null) {
+                inverses.add(inverse);
+            }
+        }
+        return new Batch(inverses, getOriginator());
+    }
+
+    @Override
+    public MessageType type() {
+        return MessageType.Batch;
+    }
+
+    @Override
+    public UpdateMessage asMessage() {
+        List<UpdateMessage> messages = new ArrayList<>(operations.size());
+        for (Operation each : operations) {
+            messages.add(each.message());
+        }
+        return new BatchMessage(messages, getOriginator(), timestamp());
+    }
+
+    /**
+     * Batches are not executed against a single object, see {@link SharedResource#execute(Operation)}.
+     */
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -17,15 +17,19 @@ package org.atlanmod.consistency.update;
 import com.google.common.primitives.Ints;
 import org.atlanmod.commons.log.Log;
 import org.atlanmod.consistency.History;
-import org.atlanmod.consistency.adapter.EObjectAdapter;
+import org.atlanmod.consistency.LwwRegisters;
+import org.atlanmod.consistency.Sequences;
 import org.atlanmod.consistency.core.*;
+import org.atlanmod.consistency.metrics.Metrics;
 import org.atlanmod.consistency.util.ConsistencyUtil;
+import org.atlanmod.consistency.util.Rga;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -38,7 +42,7 @@ public class ChangeManager {
 
     private final History history;
     private final NodeId nid;
-
+    private long captureStart;
 
     public ChangeManager(History history) {
         this.history = history;
@@ -50,44 +54,58 @@ public class ChangeManager {
     public void notifyChanged(InstanceId oid, Notification notification) {
         assert nonNull(notification);
         assert nonNull(notification.getNotifier());
-        assert EObject.class.isAssignableFrom(notification.getNotifier().getClass());
+        assert notification.getNotifier() instanceof EObject;
 
         if (notification.isTouch()) {return;}
         if(isNull(notification.getFeature())) {return;}
+        captureStart = history.getResource().metrics().start();
         int type = notification.getEventType();
         Operation op;
 
+        FeatureTable.Entry entry = FeatureTable.of(((EObject) notification.getNotifier()).eClass())
+                .entry((EStructuralFeature) notification.getFeature());
+        FeatureId fid = oid.withFeature(entry.featureId());
+
+        Sequences sequences = history.getResource().sequences();
+        if (nonNull(sequences) && entry.isMany() && entry.kind() != FeatureKind.OTHER) {
+            op = sequenced(fid, entry, notification, sequences.of(fid));
+            if (nonNull(op)) {
+                capture(op, fid, notification);
+                return;
+            }
+        }
+
         switch (type) {
             case Notification.SET :
-                op = set(oid, notification);
-                history.add(op);
+                op = set(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.UNSET:
-                op = unset(oid, notification);
-                history.add(op);
+                op = unset(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.ADD:
-                op = add(oid, notification);
-                history.add(op);
+                op = add(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.REMOVE:
-                op = remove(oid, notification);
-                history.add(op);
+                op = remove(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.MOVE:
-                op = move(oid, notification);
-                history.add(op);
+                op = move(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.ADD_MANY:
-                op = addMany(oid, notification);
-                history.add(op);
+                op = addMany(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.REMOVE_MANY:
-                op = removeMany(oid, notification);
-                history.add(op);
+                op = removeMany(fid, entry, notification);
+                capture(op, fid, notification);
                 break;
             case Notification.REMOVING_ADAPTER:
-                Log.info("--removing adapter--");
+                Log.debug("--removing adapter--");
                 break;
             case Notification.NO_FEATURE_ID: break;
             case Notification.RESOLVE: break;
@@ -97,70 +115,194 @@ public class ChangeManager {
 
     }
 
-    private Operation set(InstanceId oid, Notification notification) {
-        assert nonNull(notification.getFeature()) : "Set of a null feature";
-        //assert nonNull(notification.getNewValue()) : "Set with a null value";
+    private void capture(Operation op, FeatureId fid, Notification notification) {
+        if (op instanceof BaseOperation) {
+            ((BaseOperation) op).invertedBy(() -> inverseOf(fid, notification));
+        }
+        history.getResource().metrics().record(Metrics.Stage.CAPTURE, op, captureStart);
+        history.captured(op);
+        history.add(op);
 
-        if (Objects.isNull(notification.getNewValue())) {
-            return unset(oid, notification);
+        LwwRegisters registers = history.getResource().registers();
+        if (registers != null) {
+            registers.write(op, nid);
         }
+    }
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
+    /**
+     * Builds the operation undoing a change, from the previous state carried by its notification.
+     */
+    private Operation inverseOf(FeatureId fid, Notification notification) {
+        switch (notification.getEventType()) {
+            case Notification.SET:
+            case Notification.UNSET:
+                return new Restore(fid, notification.getOldValue(), notification.wasSet(), nid);
+            case Notification.ADD:
+                return new RemoveAt(fid, new int[]{notification.getPosition()},
+                        Collections.singletonList(notification.getNewValue()), nid);
+            case Notification.ADD_MANY:
+                List<?> added = (List<?>) notification.getNewValue();
+                return new RemoveAt(fid, range(notification.getPosition(), added.size()), added, nid);
+            case Notification.REMOVE:
+                return new InsertAt(fid, new int[]{notification.getPosition()},
+                        Collections.singletonList(notification.getOldValue()), nid);
+            case Notification.REMOVE_MANY:
+                List<?> removed = (List<?>) notification.getOldValue();
+                int[] positions = notification.getNewValue() == null
+                        ? range(0, removed.size())
+                        : (int[]) notification.getNewValue();
+                return new InsertAt(fid, positions, removed, nid);
+            case Notification.MOVE:
+                return new MoveValue(fid, notification.getPosition(), (Integer) notification.getOldValue(), nid);
+            default:
+                return null;
+        }
+    }
 
+    /**
+     * Captures a change of a many-valued feature as operations on the elements of its replicated sequence.
+     *
+     * @return the operation, or {@code null} if the change is not a list change or the sequence does not
+     * match the list, which is then replicated by position
+     */
+    private Operation sequenced(FeatureId fid, FeatureTable.Entry entry, Notification notification, Rga sequence) {
+        int size = entry.accessor().list((EObject) notification.getNotifier()).size();
 
-        notification.wasSet();
-        notification.isReset();
+        switch (notification.getEventType()) {
+            case Notification.ADD:
+                if (sequence.size() != size - 1) {
+                    return null;
+                }
+                return insertElements(fid, entry, sequence, notification.getPosition(),
+                        Collections.singletonList(notification.getNewValue()));
+            case Notification.ADD_MANY:
+                List<?> added = (List<?>) notification.getNewValue();
+                if (sequence.size() != size - added.size()) {
+                    return null;
+                }
+                return insertElements(fid, entry, sequence, notification.getPosition(), added);
+            case Notification.REMOVE:
+                if (sequence.size() != size + 1) {
+                    return null;
+                }
+                return removeElements(fid, sequence, new int[]{notification.getPosition()});
+            case Notification.REMOVE_MANY:
+                List<?> removed = (List<?>) notification.getOldValue();
+                if (sequence.size() != size + removed.size()) {
+                    return null;
+                }
+                return removeElements(fid, sequence, notification.getNewValue() == null
+                        ? range(0, removed.size())
+                        : (int[]) notification.getNewValue());
+            case Notification.MOVE:
+                if (sequence.size() != size) {
+                    return null;
+                }
+                ElementId previous = sequence.get((Integer) notification.getOldValue());
+                sequence.remove(previous);
+                int to = notification.getPosition();
+                ElementId anchor = to == 0 ? null : sequence.get(to - 1);
+                ElementId element = nextElement();
+                sequence.insert(anchor, element);
+                sequence.replace(previous, element);
+                return stamped(new MoveElement(fid, previous, anchor, element, payload(entry, notification.getNewValue()), nid), element);
+            default:
+                return null;
+        }
+    }
 
-        if (isEAttribute(feature)) {
-            return new SetValue(fid, notification.getNewValue(), notification.getOldValue(), nid);
-        } else if (isEReference(feature)) {
-            return new SetReference(fid, identifierFor((EObject) notification.getNewValue()), nid);
-        } else {
-            return new Invalid(nid);
+    private Operation insertElements(FeatureId fid, FeatureTable.Entry entry, Rga sequence, int position, List<?> values) {
+        List<Operation> operations = new ArrayList<>(values.size());
+        ElementId anchor = position == 0 ? null : sequence.get(position - 1);
+        for (Object each : values) {
+            ElementId element = nextElement();
+            sequence.insert(anchor, element);
+            operations.add(stamped(new InsertElement(fid, anchor, element, payload(entry, each), nid), element));
+            anchor = element;
+        }
+        return operations.size() == 1 ? operations.get(0) : new Batch(operations, nid);
+    }
+
+    private Operation removeElements(FeatureId fid, Rga sequence, int[] positions) {
+        ElementId[] elements = new ElementId[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            elements[i] = sequence.get(positions[i]);
+        }
+        List<Operation> operations = new ArrayList<>(elements.length);
+        for (ElementId each : elements) {
+            sequence.remove(each);
+            operations.add(new RemoveElement(fid, each, nid));
+        }
+        return operations.size() == 1 ? operations.get(0) : new Batch(operations, nid);
+    }
+
+    private ElementId nextElement() {
+        return new ElementId(history.getResource().getClock().now(), nid);
+    }
+
+    private static Operation stamped(Operation operation, ElementId element) {
+        operation.stamp(element.timestamp());
+        return operation;
+    }
+
+    private static Object payload(FeatureTable.Entry entry, Object value) {
+        return entry.kind() == FeatureKind.REFERENCE ? identifierFor((EObject) value) : value;
+    }
+
+    private static int[] range(int from, int size) {
+        int[] range = new int[size];
+        for (int i = 0; i < size; i++) {
+            range[i] = from + i;
+        }
+        return range;
+    }
+
+    private Operation set(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
+        assert nonNull(notification.getFeature()) : "Set of a null feature";
+        //assert nonNull(notification.getNewValue()) : "Set with a null value";
+
+        if (Objects.isNull(notification.getNewValue())) {
+            return unset(fid, entry, notification);
         }
+
+        return entry.kind().set(fid, notification.getNewValue(), notification.getOldValue(), nid);
     }
 
-    private Operation unset(InstanceId oid, Notification notification) {
+    private Operation unset(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
         assert nonNull(notification.getFeature()) : "Unset of a null feature";
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
         return new Unset(fid, nid);
     }
 
-    private Operation add(InstanceId oid, Notification notification) {
+    private Operation add(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
         assert nonNull(notification.getFeature()) : "Add of a null feature";
         assert nonNull(notification.getNewValue()) : "Add with a null value";
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
-
-        if (isEAttribute(feature)) {
-            return new AddValue(fid, notification.getNewValue(), nid);
-        } else if (isEReference(feature)) {
-            return new AddReference(fid, identifierFor((EObject) notification.getNewValue()), nid);
-        } else {
-            return new Invalid(nid);
-        }
+        return entry.kind().add(fid, notification.getNewValue(), notification.getPosition(), nid);
     }
 
-    private Operation remove(InstanceId oid, Notification notification) {
+    private Operation remove(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
         assert nonNull(notification.getFeature()) : "Remove of a null feature";
         assert nonNull(notification.getOldValue()) : "Remove with a null old value";
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
+        if (history.isTransforming()) {
+            // A removal by value cannot be transformed: designate the removed element by its position
+            int position = notification.getPosition();
+            if (entry.kind() == FeatureKind.ATTRIBUTE) {
+                return new RemoveManyValues(fid, Collections.singletonList(notification.getOldValue()),
+                        new int[]{position}, nid);
+            } else if (entry.kind() == FeatureKind.REFERENCE) {
+                return new RemoveManyReferences(fid, Collections.singletonList(IdBuilder.fromInt(position)), nid);
+            }
+        }
 
-        if (isEAttribute(feature)) {
+        if (entry.kind() == FeatureKind.ATTRIBUTE) {
             return new RemoveValue(fid, notification.getOldValue(), nid);
-        } else if (isEReference(feature)) {
-            Id newOid = identifierFor((EObject) notification.getOldValue());
+        } else if (entry.kind() == FeatureKind.REFERENCE) {
+            EObject removed = (EObject) notification.getOldValue();
+            Id newOid = identifierFor(removed);
             if (isNull(newOid)) {
-                newOid = history.getResource().getDetachments().stream()
-                        .filter(EObjectAdapter.class::isInstance)
-                        .map(EObjectAdapter.class::cast)
-                        .findFirst().orElse(null).id();
+                newOid = history.getResource().tombstones().get(removed);
             }
             return new RemoveReference(fid, newOid, nid);
         } else {
@@ -168,26 +310,21 @@ public class ChangeManager {
         }
     }
 
-    private Operation move(InstanceId oid, Notification notification) {
+    private Operation move(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
         assert nonNull(notification.getFeature()) : "Move of a null feature";
-        Log.info("{0}", notification.toString());
+        assert notification.getOldValue() instanceof Integer : "Move without a previous position";
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
-        return new MoveValue(fid, notification.getOldValue(), notification.getPosition(), nid);
+        return new MoveValue(fid, (Integer) notification.getOldValue(), notification.getPosition(), nid);
     }
 
-    private Operation addMany(InstanceId oid, Notification notification) {
+    private Operation addMany(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
         assert nonNull(notification.getFeature()) : "AddMany of a null feature";
         assert nonNull(notification.getNewValue()) : "AddMany with a null value";
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
-
-        if (isEAttribute(feature)) {
+        if (entry.kind() == FeatureKind.ATTRIBUTE) {
             List<Object> values = (List<Object>) notification.getNewValue();
              return new AddManyValues(fid, values, nid);
-        } else if (isEReference(feature)) {
+        } else if (entry.kind() == FeatureKind.REFERENCE) {
             List<EObject> values = (List<EObject>) notification.getNewValue();
             List<Id> ids = values.stream()
                     .map(ConsistencyUtil::identifierFor)
@@ -199,36 +336,33 @@ public class ChangeManager {
         }
     }
 
-    private Operation removeMany(InstanceId oid, Notification notification) {
+    private Operation removeMany(FeatureId fid, FeatureTable.Entry entry, Notification notification) {
         assert nonNull(notification.getFeature()) : "RemoveMany of a null feature";
         //assert nonNull(notification.getNewValue()) : "RemoveMany with a null value"; -- CLEAR
 
-        EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
-        FeatureId fid = oid.withFeature(feature);
-
-        if (notification.getNewValue() == null) { // clear() case
-            if (isEReference(feature)) {
+        if (notification.getNewValue() == null) { // clear() case: every element is removed
+            List<?> removed = (List<?>) notification.getOldValue();
+            if (entry.kind() == FeatureKind.REFERENCE) {
 
-                List<Id> values = new ArrayList<>();
-                for (EObject obj : ((EStructuralFeature) notification.getFeature()).eContents()) {
-                    values.add(identifierFor(obj));
+                List<Id> positions = new ArrayList<>(removed.size());
+                for (int i = 0; i < removed.size(); i++) {
+                    positions.add(IdBuilder.fromInt(i));
                 }
 
-                return new RemoveManyReferences(fid, values, nid);
+                return new RemoveManyReferences(fid, positions, nid);
 
-            } else if (isEAttribute(feature)) {
+            } else if (entry.kind() == FeatureKind.ATTRIBUTE) {
 
-                List<Object> values = new ArrayList<>(((EStructuralFeature) notification.getFeature()).eContents());
-                return new RemoveManyValues(fid,values, nid);
+                return new RemoveManyValues(fid, new ArrayList<>(removed), range(0, removed.size()), nid);
 
             } else {
                 return new Invalid(nid);
             }
         } else {
 
-            if (isEAttribute(feature)) {
-                return new RemoveManyValues(fid, (List<Object>) notification.getOldValue(), nid);
-            } else if (isEReference(feature)) {
+            if (entry.kind() == FeatureKind.ATTRIBUTE) {
+                return new RemoveManyValues(fid, (List<Object>) notification.getOldValue(), (int[]) notification.getNewValue(), nid);
+            } else if (entry.kind() == FeatureKind.REFERENCE) {
 
                 List<Integer> values = Ints.asList((int[]) notification.getNewValue());
 
@@ -0,0 +1,170 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+package org.atlanmod.consistency.update;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges pending outbound operations before they are sent.
+ * <ul>
+ * <li>Repeated {@link SetValue}s on a feature collapse to the last one, which keeps the previous value of
+ * the first one.</li>
+ * <li>An {@link AddValue} directly followed, on the same feature, by a {@link RemoveValue} of an equal
+ * value cancels out. The multiset of values is preserved, not necessarily their order.</li>
+ * <li>An {@link Attach} followed by a {@link Detach} of the same object is dropped, together with the
+ * operations on the features of that object, unless another object refers to it in between.</li>
+ * </ul>
+ * The relative order of the remaining operations is preserved.
+ * <p>
+ * With operational transformation, the positional operations are kept as they are: they are also kept
+ * in the history until every node integrated them, and transformed against the remote ones there.
+ */
+public final class Coalescer {
+
+    private Coalescer() {
+    }
+
+    public static List<Operation> coalesce(List<Operation> operations) {
+        return coalesce(operations, false);
+    }
+
+    /**
+     * @param keepPositional whether the {@link PositionalOperation}s must be sent unchanged
+     */
+    public static List<Operation> coalesce(List<Operation> operations, boolean keepPositional) {
+        Operation[] pending = operations.toArray(new Operation[0]);
+
+        collapseSetValues(pending);
+        if (!keepPositional) {
+            cancelAddRemoveValues(pending);
+        }
+        dropTransientObjects(pending, keepPositional);
+
+        List<Operation> result = new ArrayList<>(pending.length);
+        for (Operation each : pending) {
+            if (each != null) {
+                result.add(each);
+            }
+        }
+        return result;
+    }
+
+    private static void collapseSetValues(Operation[] pending) {
+        Map<FeatureId, Integer> lastSet = Maps.newHashMap();
+        Map<FeatureId, Object> firstPrevious = Maps.newHashMap();
+
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] instanceof SetValue) {
+                SetValue set = (SetValue) pending[i];
+                Integer previous = lastSet.put(set.featureId(), i);
+                if (previous == null) {
+                    firstPrevious.put(set.featureId(), set.previous());
+                } else {
+                    pending[previous] = null;
+                }
+            }
+        }
+
+        for (int i : lastSet.values()) {
+            SetValue set = (SetValue) pending[i];
+            Object previous = firstPrevious.get(set.featureId());
+            if (!Objects.equals(previous, set.previous())) {
+                SetValue merged = new SetValue(set.featureId(), set.value(), previous, set.getOriginator());
+                merged.stamp(set.timestamp());
+                pending[i] = merged;
+            }
+        }
+    }
+
+    private static void cancelAddRemoveValues(Operation[] pending) {
+        Map<FeatureId, Integer> lastAdd = Maps.newHashMap();
+
+        for (int i = 0; i < pending.length; i++) {
+            if (!(pending[i] instanceof FeatureOperation)) {
+                continue;
+            }
+            FeatureId fid = ((FeatureOperation) pending[i]).featureId();
+            Integer add = lastAdd.remove(fid);
+            if (pending[i] instanceof AddValue) {
+                lastAdd.put(fid, i);
+            } else if (add != null && pending[i] instanceof RemoveValue
+                    && Objects.equals(((AddValue) pending[add]).value(), ((RemoveValue) pending[i]).value())) {
+                pending[add] = null;
+                pending[i] = null;
+            }
+        }
+    }
+
+    private static void dropTransientObjects(Operation[] pending, boolean keepPositional) {
+        Map<Id, Integer> attached = Maps.newHashMap();
+        Set<Id> referenced = Sets.newHashSet();
+
+        for (int i = 0; i < pending.length; i++) {
+            Operation op = pending[i];
+            if (op instanceof Attach) {
+                attached.put(op.instanceId(), i);
+                referenced.remove(op.instanceId());
+            } else if (op instanceof Detach) {
+                Integer attach = attached.remove(op.instanceId());
+                if (attach != null && !referenced.contains(op.instanceId())) {
+                    dropObject(pending, op.instanceId(), attach, i);
+                }
+            } else if (op instanceof FeatureOperation) {
+                Id owner = ((FeatureOperation) op).featureId().asInstanceId();
+                if (keepPositional && op instanceof PositionalOperation) {
+                    referenced.add(owner);
+                }
+                for (Id each : referencesOf(op)) {
+                    if (!each.equals(owner)) {
+                        referenced.add(each);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void dropObject(Operation[] pending, Id oid, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            if (pending[i] instanceof FeatureOperation
+                    && oid.equals(((FeatureOperation) pending[i]).featureId().asInstanceId())) {
+                pending[i] = null;
+            }
+        }
+        pending[from] = null;
+        pending[to] = null;
+    }
+
+    static List<Id> referencesOf(Operation op) {
+        if (op instanceof SetReference) {
+            return Collections.singletonList(((SetReference) op).reference());
+        } else if (op instanceof AddReference) {
+            return Collections.singletonList(((AddReference) op).reference());
+        } else if (op instanceof AddManyReferences) {
+            return ((AddManyReferences) op).references();
+        } else {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+package org.atlanmod.consistency.update;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compacts a log of operations by key, in the manner of Kafka log compaction: what remains replays to the
+ * same state, at a cost proportional to that state rather than to the edits that led to it.
+ * <ul>
+ * <li>Of the {@link SetValue}s, {@link SetReference}s and {@link Unset}s of a {@link FeatureId}, only the
+ * last one is kept. This only applies to single-valued attributes and to single-valued references that
+ * are neither containments nor have an opposite, whose writes have no effect on other features.</li>
+ * <li>An {@link Attach} followed by a {@link Detach} of the same object is dropped, together with all the
+ * operations on the features of that object, unless another object refers to it.</li>
+ * </ul>
+ * The class of an object is known from its {@link Attach}: the writes of objects attached before the
+ * compacted operations are kept. Batches are compacted as their operations, and dropped once empty.
+ */
+public final class Compactor {
+
+    private Compactor() {
+    }
+
+    public static List<Operation> compact(List<Operation> operations) {
+        Operation[] retained = operations.toArray(new Operation[0]);
+        compact(retained);
+
+        List<Operation> result = new ArrayList<>(retained.length);
+        for (Operation each : retained) {
+            if (each != null) {
+                result.add(each);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compacts {@code operations} in place: the dropped operations are replaced by {@code null}, and the
+     * batches by batches of their retained operations.
+     */
+    public static void compact(Operation[] operations) {
+        List<Operation> flat = new ArrayList<>(operations.length);
+        for (Operation each : operations) {
+            flatten(each, flat);
+        }
+        Operation[] pending = flat.toArray(new Operation[0]);
+
+        dropDeadObjects(pending);
+        keepLastWrites(pending);
+
+        int[] next = {0};
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = retain(operations[i], pending, next);
+        }
+    }
+
+    private static void dropDeadObjects(Operation[] pending) {
+        Set<Id> attached = Sets.newHashSet();
+        Set<Id> detached = Sets.newHashSet();
+        Set<Id> referenced = Sets.newHashSet();
+
+        for (Operation op : pending) {
+            if (op instanceof Attach) {
+                attached.add(op.instanceId());
+                detached.remove(op.instanceId());
+            } else if (op instanceof Detach) {
+                if (attached.contains(op.instanceId())) {
+                    detached.add(op.instanceId());
+                }
+            } else if (op instanceof FeatureOperation) {
+                Id owner = ((FeatureOperation) op).featureId().asInstanceId();
+                for (Id each : Coalescer.referencesOf(op)) {
+                    if (!each.equals(owner)) {
+                        referenced.add(each);
+                    }
+                }
+            }
+        }
+        detached.removeAll(referenced);
+        if (detached.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < pending.length; i++) {
+            Operation op = pending[i];
+            Id owner;
+            if (op instanceof Attach || op instanceof Detach) {
+                owner = op.instanceId();
+            } else if (op instanceof FeatureOperation) {
+                owner = ((FeatureOperation) op).featureId().asInstanceId();
+            } else {
+                continue;
+            }
+            if (detached.contains(owner)) {
+                pending[i] = null;
+            }
+        }
+    }
+
+    private static void keepLastWrites(Operation[] pending) {
+        Map<Id, EClass> classes = Maps.newHashMap();
+        Map<FeatureId, Integer> lastWrite = Maps.newHashMap();
+
+        for (int i = 0; i < pending.length; i++) {
+            Operation op = pending[i];
+            if (op instanceof Attach) {
+                classes.put(op.instanceId(), ((Attach) op).getEClass());
+            } else if (op instanceof SetValue || op instanceof SetReference || op instanceof Unset) {
+                FeatureId fid = ((FeatureOperation) op).featureId();
+                EClass eClass = classes.get(fid.asInstanceId());
+                if (eClass != null && isOverwritten(eClass, fid)) {
+                    Integer previous = lastWrite.put(fid, i);
+                    if (previous != null) {
+                        pending[previous] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a write of {@code fid} only depends on the last write before it.
+     */
+    private static boolean isOverwritten(EClass eClass, FeatureId fid) {
+        FeatureTable table = FeatureTable.of(eClass);
+        if (fid.toInt() < 0 || fid.toInt() >= table.size()) {
+            return false;
+        }
+        EStructuralFeature feature = table.entry(fid.toInt()).feature();
+        if (feature.isMany()) {
+            return false;
+        }
+        if (feature instanceof EReference) {
+            EReference reference = (EReference) feature;
+            return !reference.isContainment() && !reference.isContainer() && reference.getEOpposite() == null;
+        }
+        return true;
+    }
+
+    private static void flatten(Operation op, List<Operation> flat) {
+        if (op instanceof Batch) {
+            ((Batch) op).operations().forEach(each -> flatten(each, flat));
+        } else {
+            flat.add(op);
+        }
+    }
+
+    private static Operation retain(Operation op, Operation[] pending, int[] next) {
+        if (!(op instanceof Batch)) {
+            return pending[next[0]++];
+        }
+        Batch batch = (Batch) op;
+        List<Operation> retained = new ArrayList<>(batch.size());
+        boolean changed = false;
+        for (Operation each : batch.operations()) {
+            Operation kept = retain(each, pending, next);
+            changed |= kept != each;
+            if (kept != null) {
+                retained.add(kept);
+            }
+        }
+        if (!changed) {
+            return batch;
+        } else if (retained.isEmpty()) {
+            return null;
+        }
+        Batch compacted = new Batch(retained, batch.getOriginator());
+        compacted.stamp(batch.timestamp());
+        return compacted;
+    }
+}
@@ -50,9 +50,14 @@ public class Detach extends BaseOperation {
         return instanceId;
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.Detach;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new InstanceMessage(MessageType.Detach, this.instanceId, getOriginator());
+        return new InstanceMessage(type(), this.instanceId, getOriginator(), timestamp());
     }
 
     @Override
@@ -0,0 +1,67 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.util.Rga;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * An operation on an element of the replicated sequence of a many-valued feature.
+ * <p>
+ * Elements are designated by their {@link ElementId}, not by their position, so that concurrent
+ * operations on the same list converge.
+ */
+public abstract class ElementOperation extends FeatureOperation {
+    private final ElementId element;
+
+    public ElementOperation(FeatureId fid, ElementId element, NodeId originator) {
+        super(fid, originator);
+        this.element = element;
+    }
+
+    public ElementId element() {
+        return element;
+    }
+
+    protected Rga sequenceOf(SharedResource resource) {
+        return resource.sequences().of(featureId());
+    }
+
+    /**
+     * Returns the value to put in the list of {@code eObject}: references are carried as identifiers.
+     */
+    protected Object resolve(SharedResource resource, EObject eObject, Object value) {
+        FeatureKind kind = FeatureTable.of(eObject.eClass()).entry(featureId().toInt()).kind();
+        return kind == FeatureKind.REFERENCE ? resource.resolve((Id) value) : value;
+    }
+
+    /**
+     * Inserts {@code value} at {@code index}. A unique list that already contains the value, such as a
+     * list filled by an opposite reference, gets the value moved there instead.
+     */
+    protected static void insert(EList<Object> list, int index, Object value) {
+        int current = list.indexOf(value);
+        if (current >= 0 && value instanceof EObject) {
+            list.move(Math.min(index, list.size() - 1), current);
+        } else {
+            list.add(Math.min(index, list.size()), value);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Reads and writes a structural feature of the instances of an {@link EClass}.
+ * <p>
+ * When the class is generated, the accessor calls its getter and setter directly, through functions
+ * spun once with {@link LambdaMetafactory}. Otherwise, or if the accessors cannot be found, it falls back
+ * to the reflective {@link InternalEObject#eGet(int, boolean, boolean)} and
+ * {@link InternalEObject#eSet(int, Object)}. Both behave the same, including proxy resolution.
+ */
+public abstract class FeatureAccessor {
+
+    protected final int featureId;
+
+    private FeatureAccessor(int featureId) {
+        this.featureId = featureId;
+    }
+
+    public abstract Object get(EObject eObject);
+
+    public abstract void set(EObject eObject, Object value);
+
+    public void unset(EObject eObject) {
+        ((InternalEObject) eObject).eUnset(featureId);
+    }
+
+    /**
+     * Returns the value of a many-valued feature.
+     */
+    @SuppressWarnings("unchecked")
+    public EList<Object> list(EObject eObject) {
+        return (EList<Object>) get(eObject);
+    }
+
+    /**
+     * @return {@code true} if this accessor calls the generated accessors
+     */
+    public abstract boolean isCompiled();
+
+    static FeatureAccessor of(EClass eClass, EStructuralFeature feature, int featureId) {
+        Class<?> type = eClass.getInstanceClass();
+        if (type != null) {
+            try {
+                Method getter = getterOf(type, feature);
+                if (getter != null) {
+                    Function<Object, Object> get = compileGetter(getter);
+                    BiConsumer<Object, Object> set = null;
+                    if (!feature.isMany() && feature.isChangeable()) {
+                        Method setter = setterOf(type, feature, getter);
+                        set = setter == null ? null : compileSetter(setter);
+                    }
+                    return new Compiled(featureId, get, set);
+                }
+            } catch (ReflectiveOperationException | LambdaConversionException e) {
+                // Not accessible from here, keep the reflective accessor
+            }
+        }
+        return new Reflective(featureId);
+    }
+
+    /**
+     * Finds the generated getter of a feature: {@code get} or, for a boolean attribute, {@code is} followed
+     * by the capitalized name of the feature, suffixed by {@code _} when it would clash with a method of
+     * {@link Object} or {@link EObject}, as generated for a feature named {@code class}.
+     *
+     * @return the getter, or {@code null} if there is none
+     */
+    private static Method getterOf(Class<?> type, EStructuralFeature feature) {
+        String prefix = feature.getEType().getInstanceClass() == boolean.class ? "is" : "get";
+        String name = prefix + capitalize(feature.getName());
+        for (String each : new String[]{name, name + '_'}) {
+            try {
+                Method method = type.getMethod(each);
+                if (isGenerated(method, feature) && method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // Try the safe name
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the generated setter of a feature, named after its getter.
+     *
+     * @return the setter, or {@code null} if there is none
+     */
+    private static Method setterOf(Class<?> type, EStructuralFeature feature, Method getter) {
+        String name = getter.getName().substring(getter.getName().startsWith("is") ? 2 : 3);
+        try {
+            Method method = type.getMethod("set" + name, getter.getReturnType());
+            return isGenerated(method, feature) ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks that a method is declared by the interface of the class containing {@code feature}, or by one
+     * of its implementations, rather than by {@link Object} or another interface.
+     */
+    private static boolean isGenerated(Method method, EStructuralFeature feature) {
+        Class<?> container = feature.getEContainingClass().getInstanceClass();
+        return !Modifier.isStatic(method.getModifiers())
+                && container != null && container.isAssignableFrom(method.getDeclaringClass());
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compileGetter(Method getter) throws ReflectiveOperationException, LambdaConversionException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle = lookup.unreflect(getter);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                MethodType.methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+        return (Function<Object, Object>) newInstance(site);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> compileSetter(Method setter) throws ReflectiveOperationException, LambdaConversionException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle = lookup.unreflect(setter);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle,
+                MethodType.methodType(void.class, setter.getDeclaringClass(), wrap(setter.getParameterTypes()[0])));
+        return (BiConsumer<Object, Object>) newInstance(site);
+    }
+
+    /**
+     * Returns the function of a call site spun by {@link LambdaMetafactory}, which captures nothing and
+     * throws no checked exception.
+     */
+    private static Object newInstance(CallSite site) {
+        try {
+            return site.getTarget().invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static final class Compiled extends FeatureAccessor {
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+
+        private Compiled(int featureId, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+            super(featureId);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public Object get(EObject eObject) {
+            return getter.apply(eObject);
+        }
+
+        @Override
+        public void set(EObject eObject, Object value) {
+            if (setter == null || value == null) {
+                ((InternalEObject) eObject).eSet(featureId, value);
+            } else {
+                setter.accept(eObject, value);
+            }
+        }
+
+        @Override
+        public boolean isCompiled() {
+            return true;
+        }
+    }
+
+    private static final class Reflective extends FeatureAccessor {
+
+        private Reflective(int featureId) {
+            super(featureId);
+        }
+
+        @Override
+        public Object get(EObject eObject) {
+            return ((InternalEObject) eObject).eGet(featureId, true, true);
+        }
+
+        @Override
+        public void set(EObject eObject, Object value) {
+            ((InternalEObject) eObject).eSet(featureId, value);
+        }
+
+        @Override
+        public boolean isCompiled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import static org.atlanmod.consistency.util.ConsistencyUtil.identifierFor;
+
+/**
+ * The kind of a structural feature, with the factories of the operations capturing its single-valued changes.
+ */
+public enum FeatureKind {
+    ATTRIBUTE {
+        @Override
+        public Operation set(FeatureId fid, Object value, Object previous, NodeId originator) {
+            return new SetValue(fid, value, previous, originator);
+        }
+
+        @Override
+        public Operation add(FeatureId fid, Object value, int position, NodeId originator) {
+            return new AddValue(fid, value, position, originator);
+        }
+    },
+    REFERENCE {
+        @Override
+        public Operation set(FeatureId fid, Object value, Object previous, NodeId originator) {
+            return new SetReference(fid, identifierFor((EObject) value), originator);
+        }
+
+        @Override
+        public Operation add(FeatureId fid, Object value, int position, NodeId originator) {
+            return new AddReference(fid, identifierFor((EObject) value), originator);
+        }
+    },
+    OTHER {
+        @Override
+        public Operation set(FeatureId fid, Object value, Object previous, NodeId originator) {
+            return new Invalid(originator);
+        }
+
+        @Override
+        public Operation add(FeatureId fid, Object value, int position, NodeId originator) {
+            return new Invalid(originator);
+        }
+    };
+
+    public abstract Operation set(FeatureId fid, Object value, Object previous, NodeId originator);
+
+    /**
+     * @param position the position of the added value; references are added by identifier
+     */
+    public abstract Operation add(FeatureId fid, Object value, int position, NodeId originator);
+
+    public static FeatureKind of(EStructuralFeature feature) {
+        if (feature instanceof EAttribute) {
+            return ATTRIBUTE;
+        } else if (feature instanceof EReference) {
+            return REFERENCE;
+        } else {
+            return OTHER;
+        }
+    }
+}
@@ -17,6 +17,9 @@ package org.atlanmod.consistency.update;
 import org.atlanmod.consistency.core.FeatureId;
 import org.atlanmod.consistency.core.Id;
 import org.atlanmod.consistency.core.NodeId;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
 
 /**
  * Created on 15/03/2017.
@@ -41,4 +44,32 @@ public abstract class FeatureOperation extends BaseOperation {
         return featureId;
     }
 
+    /**
+     * Returns the accessor of the feature of this operation in the class of {@code eObject}.
+     */
+    protected FeatureAccessor accessor(EObject eObject) {
+        return FeatureTable.of(eObject.eClass()).entry(featureId.toInt()).accessor();
+    }
+
+    /**
+     * Checks in constant time whether {@code value} is in the list of the feature of this operation in
+     * {@code eObject}, from the other end of a containment or of a reference with a single-valued
+     * opposite.
+     *
+     * @return {@code false} if {@code value} is not there, or if that cannot be told from the other end
+     */
+    protected boolean isReferencedBack(EObject eObject, Object value) {
+        EStructuralFeature feature = FeatureTable.of(eObject.eClass()).entry(featureId.toInt()).feature();
+        if (!(feature instanceof EReference) || !(value instanceof EObject)) {
+            return false;
+        }
+        EReference reference = (EReference) feature;
+        EObject object = (EObject) value;
+        if (reference.isContainment()) {
+            return object.eContainer() == eObject && object.eContainmentFeature() == reference;
+        }
+        EReference opposite = reference.getEOpposite();
+        return opposite != null && !opposite.isMany() && object.eGet(opposite) == eObject;
+    }
+
 }
@@ -0,0 +1,111 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatch tables of the structural features of each {@link EClass}, indexed by feature id.
+ * <p>
+ * Tables are computed once per class and shared, so that capturing or applying a change only costs an
+ * array lookup.
+ */
+public final class FeatureTable {
+
+    private static final Map<EClass, FeatureTable> TABLES = new ConcurrentHashMap<>();
+
+    private final EClass eClass;
+    private final Entry[] entries;
+
+    private FeatureTable(EClass eClass) {
+        this.eClass = eClass;
+        List<EStructuralFeature> features = eClass.getEAllStructuralFeatures();
+        entries = new Entry[features.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(eClass, features.get(i), i);
+        }
+    }
+
+    public static FeatureTable of(EClass eClass) {
+        return TABLES.computeIfAbsent(eClass, FeatureTable::new);
+    }
+
+    /**
+     * Returns the entry of {@code feature}. The feature id of the feature is tried first, which is its id
+     * in this class unless it is inherited from a secondary supertype.
+     */
+    public Entry entry(EStructuralFeature feature) {
+        int id = feature.getFeatureID();
+        if (id >= 0 && id < entries.length && entries[id].feature == feature) {
+            return entries[id];
+        }
+        id = eClass.getFeatureID(feature);
+        if (id < 0) {
+            throw new IllegalArgumentException(feature.getName() + " is not a feature of " + eClass.getName());
+        }
+        return entries[id];
+    }
+
+    public Entry entry(int featureId) {
+        return entries[featureId];
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public static class Entry {
+        private final EStructuralFeature feature;
+        private final int featureId;
+        private final FeatureKind kind;
+        private final boolean many;
+        private final FeatureAccessor accessor;
+
+        private Entry(EClass eClass, EStructuralFeature feature, int featureId) {
+            this.feature = feature;
+            this.featureId = featureId;
+            this.kind = FeatureKind.of(feature);
+            this.many = feature.isMany();
+            this.accessor = FeatureAccessor.of(eClass, feature, featureId);
+        }
+
+        public EStructuralFeature feature() {
+            return feature;
+        }
+
+        /**
+         * @return the id of the feature in the class of the table
+         */
+        public int featureId() {
+            return featureId;
+        }
+
+        public FeatureKind kind() {
+            return kind;
+        }
+
+        public boolean isMany() {
+            return many;
+        }
+
+        public FeatureAccessor accessor() {
+            return accessor;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inserts values back at the positions they were removed from. Used as an inverse operation only.
+ */
+public class InsertAt extends FeatureOperation {
+    private final int[] positions;
+    private final List<?> values;
+
+    /**
+     * @param positions the positions of the values, in increasing order
+     * @param values    the values to insert
+     */
+    public InsertAt(FeatureId fid, int[] positions, List<?> values, NodeId originator) {
+        super(fid, originator);
+        this.positions = positions;
+        this.values = values;
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " InsertAt{" +
+                "fid=" + featureId() +
+                ", positions=" + Arrays.toString(positions) +
+                ", values=" + values +
+                '}';
+    }
+
+    /**
+     * Counts as the change of many references or many values, after the kind of its values.
+     */
+    @Override
+    public MessageType type() {
+        return !values.isEmpty() && values.get(0) instanceof EObject
+                ? MessageType.AddManyReferences
+                : MessageType.AddManyValues;
+    }
+
+    /**
+     * Values are inserted in increasing positions, so that each lands where it was. An object put back by
+     * the inverse of its opposite reference was appended to the list: it is moved to its position.
+     */
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        EList<Object> list = accessor(eObject).list(eObject);
+        for (int i = 0; i < positions.length; i++) {
+            Object value = values.get(i);
+            if (isReferencedBack(eObject, value)) {
+                int last = list.size() - 1;
+                if (list.get(last) == value) {
+                    list.move(Math.min(positions[i], last), last);
+                }
+                continue;
+            }
+            list.add(Math.min(positions[i], list.size()), value);
+        }
+    }
+}
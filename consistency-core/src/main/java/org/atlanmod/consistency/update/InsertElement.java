@@ -0,0 +1,78 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.ElementMessage;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Inserts a value in a replicated sequence, after an anchor element.
+ */
+public class InsertElement extends ElementOperation {
+    private final ElementId anchor;
+    private final Object value;
+
+    /**
+     * @param anchor  the element to insert after, or {@code null} for the head
+     * @param element the identifier of the new element
+     * @param value   the value, or the identifier of the referenced object
+     */
+    public InsertElement(FeatureId fid, ElementId anchor, ElementId element, Object value, NodeId originator) {
+        super(fid, element, originator);
+        this.anchor = anchor;
+        this.value = value;
+    }
+
+    public ElementId anchor() {
+        return anchor;
+    }
+
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " InsertElement{" +
+                "fid=" + featureId() +
+                ", anchor=" + anchor +
+                ", element=" + element() +
+                ", value=" + value +
+                '}';
+    }
+
+    @Override
+    public MessageType type() {
+        return MessageType.InsertElement;
+    }
+
+    @Override
+    public UpdateMessage asMessage() {
+        return new ElementMessage(type(), featureId(), anchor, element(), null, value, getOriginator(), timestamp());
+    }
+
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        int index = sequenceOf(resource).insert(anchor, element());
+        if (index >= 0) {
+            insert(accessor(eObject).list(eObject), index, resolve(resource, eObject, value));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.ElementMessage;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.util.Rga;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Moves a value in a replicated sequence: its element is removed, and a new element is inserted after an
+ * anchor. The value stays in the list meanwhile, so a contained object is not detached.
+ */
+public class MoveElement extends ElementOperation {
+    private final ElementId previous;
+    private final ElementId anchor;
+    private final Object value;
+
+    /**
+     * @param previous the element of the value before the move
+     * @param anchor   the element to insert after, or {@code null} for the head
+     * @param element  the element of the value after the move
+     * @param value    the value, or the identifier of the referenced object
+     */
+    public MoveElement(FeatureId fid, ElementId previous, ElementId anchor, ElementId element, Object value, NodeId originator) {
+        super(fid, element, originator);
+        this.previous = previous;
+        this.anchor = anchor;
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " MoveElement{" +
+                "fid=" + featureId() +
+                ", previous=" + previous +
+                ", anchor=" + anchor +
+                ", element=" + element() +
+                '}';
+    }
+
+    @Override
+    public MessageType type() {
+        return MessageType.MoveElement;
+    }
+
+    @Override
+    public UpdateMessage asMessage() {
+        return new ElementMessage(type(), featureId(), anchor, element(), previous, value, getOriginator(), timestamp());
+    }
+
+    /**
+     * If the value was moved concurrently, the move with the greater element wins, and the other element
+     * is left as a tombstone. If the value was removed concurrently, the move inserts it back.
+     */
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        Rga sequence = sequenceOf(resource);
+        int from = sequence.remove(previous);
+        ElementId moved = from < 0 ? sequence.replacementOf(previous) : null;
+        if (moved != null && moved.compareTo(element()) < 0) {
+            from = sequence.remove(moved);
+        }
+        int to = sequence.insert(anchor, element());
+        if (to < 0) {
+            return;
+        }
+        if (moved != null && moved.compareTo(element()) > 0) {
+            sequence.remove(element());
+            sequence.replace(element(), moved);
+            return;
+        }
+        sequence.replace(moved != null ? moved : previous, element());
+
+        EList<Object> list = accessor(eObject).list(eObject);
+        if (from >= 0 && from < list.size()) {
+            list.move(Math.min(to, list.size() - 1), from);
+        } else {
+            Object resolved = resolve(resource, eObject, value);
+            if (resolved != null) {
+                insert(list, to, resolved);
+            } else {
+                sequence.remove(element());
+            }
+        }
+    }
+}
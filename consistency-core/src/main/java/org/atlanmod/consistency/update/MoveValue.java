@@ -16,8 +16,10 @@ package org.atlanmod.consistency.update;
 
 import org.atlanmod.consistency.SharedResource;
 import org.atlanmod.consistency.core.FeatureId;
-import org.atlanmod.consistency.core.Id;
 import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
 
 /**
@@ -25,34 +27,54 @@ import org.eclipse.emf.ecore.EObject;
  *
  * @author AtlanMod team.
  */
-public class MoveValue extends BaseOperation {
-    private final FeatureId fid;
-    private final Object from;
-    private final Object to;
-
-    MoveValue(FeatureId fid, Object from, Object to, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+public class MoveValue extends PositionalOperation {
+    private final int from;
+    private final int to;
+
+    public MoveValue(FeatureId fid, int from, int to, NodeId originator) {
+        super(fid, originator);
         this.from = from;
         this.to = to;
     }
 
+    /**
+     * @return the position of the moved element before the move
+     */
+    public int from() {
+        return from;
+    }
+
+    /**
+     * @return the position of the moved element after the move
+     */
+    public int to() {
+        return to;
+    }
 
     @Override
     public String toString() {
         return getOriginator() + " MoveValue{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", from=" + from +
                 ", to=" + to +
                 '}';
     }
 
     @Override
-    public Id instanceId() {
-        return fid.asInstanceId();
+    public MessageType type() {
+        return MessageType.MoveValue;
+    }
+
+    @Override
+    public UpdateMessage asMessage() {
+        return withContext(new ValueMessage(type(), featureId(), to, from, getOriginator(), timestamp()));
     }
 
+    /**
+     * Moves the element in place, which only shifts the elements between both positions.
+     */
     @Override
     public void execute(SharedResource resource, EObject eObject) {
+        accessor(eObject).list(eObject).move(to, from);
     }
 }
@@ -19,6 +19,7 @@ package org.atlanmod.consistency.update;
 import org.atlanmod.consistency.SharedResource;
 import org.atlanmod.consistency.core.Id;
 import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.eclipse.emf.ecore.EObject;
 
@@ -42,6 +43,22 @@ public interface Operation {
      */
     UpdateMessage asMessage();
 
+    /**
+     * Returns the type of the message of this operation. The operations that are only applied locally,
+     * such as inverses, have the type of the message closest to the change they make.
+     *
+     * @return the type, or {@code null} if this operation has no message
+     */
+    MessageType type();
+
+    /**
+     * Returns the message of this operation, built by {@link #asMessage()} once and shared by the log, the
+     * write-ahead log and the nodes it is sent to. It is built again if the operation is stamped again.
+     *
+     * @return an UpdateMessage
+     */
+    UpdateMessage message();
+
     /**
      *
      * @param resource a SharedResource
@@ -50,4 +67,25 @@ public interface Operation {
     void execute(SharedResource resource, EObject eObject);
 
     NodeId getOriginator();
+
+    /**
+     * @return the hybrid logical clock timestamp of this operation, or {@code 0} if it is not stamped yet
+     */
+    long timestamp();
+
+    /**
+     * Stamps this operation with a hybrid logical clock timestamp.
+     *
+     * @param timestamp a timestamp issued by a {@link org.atlanmod.consistency.core.HybridLogicalClock}
+     */
+    void stamp(long timestamp);
+
+    /**
+     * Returns the operation that undoes this one, for {@link SharedResource#cancel(Operation)}.
+     * Inverse operations are applied locally: the changes they make are captured and sent as usual.
+     *
+     * @return the inverse operation, or {@code null} if this operation cannot be undone by itself or was
+     * not captured with enough information
+     */
+    Operation inverse();
 }
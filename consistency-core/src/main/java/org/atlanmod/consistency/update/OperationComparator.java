@@ -0,0 +1,56 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.core.HybridLogicalClock;
+import org.atlanmod.consistency.core.NodeId;
+
+import java.util.Comparator;
+
+/**
+ * Orders operations by their hybrid logical clock timestamp, then by originator.
+ * <p>
+ * The order is total for operations stamped by distinct nodes, and is the same on every node, as
+ * received operations keep their originator. It decides which of two concurrent positional operations
+ * wins, see {@link org.atlanmod.consistency.History#integrate(Operation, NodeId)}, and which write of a
+ * register is the last, see {@link org.atlanmod.consistency.LwwRegisters}.
+ */
+public class OperationComparator implements Comparator<Operation> {
+
+    public static final OperationComparator INSTANCE = new OperationComparator();
+
+    private OperationComparator() {
+    }
+
+    @Override
+    public int compare(Operation left, Operation right) {
+        return compare(left.timestamp(), nodeOf(left.getOriginator()), right.timestamp(), nodeOf(right.getOriginator()));
+    }
+
+    /**
+     * Compares two operations by their timestamp and the number of their originator.
+     */
+    public static int compare(long leftTimestamp, int leftNode, long rightTimestamp, int rightNode) {
+        int result = HybridLogicalClock.compare(leftTimestamp, rightTimestamp);
+        return result != 0 ? result : Integer.compare(leftNode, rightNode);
+    }
+
+    /**
+     * @return the number of {@code nid}, or {@code -1} if it is {@code null}
+     */
+    public static int nodeOf(NodeId nid) {
+        return nid == null ? -1 : nid.toInt();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.BatchMessage;
+import org.atlanmod.consistency.message.ElementMessage;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.message.ValueMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recreates operations from their messages.
+ */
+public final class OperationFactory {
+
+    private OperationFactory() {
+    }
+
+    /**
+     * Recreates the operation carried by a message, with its timestamp.
+     *
+     * @param message    a message built by {@link Operation#asMessage()}
+     * @param originator the originator of the recreated operation
+     */
+    @SuppressWarnings("unchecked")
+    public static Operation fromMessage(UpdateMessage message, NodeId originator) {
+        Operation operation = null;
+        switch (message.type()) {
+            case Attach:
+                operation = new Attach(message, originator);
+                break;
+            case Detach:
+                operation = new Detach(message, originator);
+                break;
+            case SetValue:
+                operation = new SetValue((FeatureId) message.featureId(), message.value(), message.oldValue(), originator);
+                break;
+            case SetReference:
+                operation = new SetReference((FeatureId) message.featureId(), (Id) message.value(), originator);
+                break;
+            case AddReference:
+                operation = new AddReference((FeatureId) message.featureId(), (Id) message.value(), originator);
+                break;
+            case Unset:
+                operation = new Unset((FeatureId) message.featureId(), originator);
+                break;
+            case AddManyReferences:
+                operation = new AddManyReferences((FeatureId) message.featureId(), (List<Id>) message.value(), originator);
+                break;
+            case RemoveManyReferences:
+                operation = new RemoveManyReferences((FeatureId) message.featureId(), (List<Id>) message.value(), originator);
+                break;
+            case RemoveReference:
+                operation = new RemoveReference((FeatureId) message.featureId(), (Id) message.value(), originator);
+                break;
+            case AddValue:
+                operation = new AddValue((FeatureId) message.featureId(), message.value(), message.oldValue() == null ? -1 : (Integer) message.oldValue(), originator);
+                break;
+            case AddManyValues:
+                operation = new AddManyValues((FeatureId) message.featureId(), (List<Object>) message.value(), originator);
+                break;
+            case RemoveValue:
+                operation = new RemoveValue((FeatureId) message.featureId(), message.value(), originator);
+                break;
+            case RemoveManyValues:
+                operation = new RemoveManyValues((FeatureId) message.featureId(), (List<Object>) message.value(), (int[]) message.oldValue(), originator);
+                break;
+            case MoveValue:
+                operation = new MoveValue((FeatureId) message.featureId(), (Integer) message.oldValue(), (Integer) message.value(), originator);
+                break;
+            case InsertElement:
+                ElementMessage inserted = (ElementMessage) message;
+                operation = new InsertElement((FeatureId) message.featureId(), inserted.anchor(), inserted.element(), message.value(), originator);
+                break;
+            case RemoveElement:
+                operation = new RemoveElement((FeatureId) message.featureId(), ((ElementMessage) message).element(), originator);
+                break;
+            case MoveElement:
+                ElementMessage moved = (ElementMessage) message;
+                operation = new MoveElement((FeatureId) message.featureId(), moved.previous(), moved.anchor(), moved.element(), message.value(), originator);
+                break;
+            case Batch:
+                List<UpdateMessage> messages = ((BatchMessage) message).messages();
+                List<Operation> operations = new ArrayList<>(messages.size());
+                for (UpdateMessage each : messages) {
+                    Operation included = fromMessage(each, originator);
+                    if (included != null) {
+                        operations.add(included);
+                    }
+                }
+                operation = new Batch(operations, originator);
+                break;
+        }
+
+        if (message.timestamp() != 0) {
+            operation.stamp(message.timestamp());
+        }
+        if (operation instanceof PositionalOperation && message instanceof ValueMessage) {
+            ((PositionalOperation) operation).setContext(((ValueMessage) message).context());
+        }
+        return operation;
+    }
+}
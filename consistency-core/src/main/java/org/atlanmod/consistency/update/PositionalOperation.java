@@ -0,0 +1,70 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.VersionVector;
+import org.atlanmod.consistency.message.ValueMessage;
+
+/**
+ * An operation designating the elements of a many-valued feature by their positions.
+ * <p>
+ * Positions are only meaningful against the state the operation was issued on. When operational
+ * transformation is enabled, each operation records what its node had integrated at that time, so that
+ * the other nodes can transform it against their concurrent operations, see {@link Transformer}.
+ */
+public abstract class PositionalOperation extends FeatureOperation {
+
+    private VersionVector context;
+
+    public PositionalOperation(FeatureId featureId, NodeId originator) {
+        super(featureId, originator);
+    }
+
+    /**
+     * @return {@code true} if this operation carries positions that can be transformed
+     */
+    public boolean isPositional() {
+        return true;
+    }
+
+    /**
+     * @return the operations integrated by the originator when this operation was issued, or {@code null}
+     */
+    public VersionVector context() {
+        return context;
+    }
+
+    public void setContext(VersionVector context) {
+        this.context = context;
+        discardMessage();
+    }
+
+    protected ValueMessage withContext(ValueMessage message) {
+        message.setContext(context);
+        return message;
+    }
+
+    /**
+     * Gives a transformed copy the timestamp and the context of this operation.
+     */
+    <T extends PositionalOperation> T derive(T transformed) {
+        transformed.stamp(timestamp());
+        transformed.setContext(context);
+        return transformed;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Removes values from the positions they were added at. Used as an inverse operation only.
+ */
+public class RemoveAt extends FeatureOperation {
+    private final int[] positions;
+    private final List<?> values;
+
+    /**
+     * @param positions the positions of the values, in increasing order
+     * @param values    the values expected at these positions
+     */
+    public RemoveAt(FeatureId fid, int[] positions, List<?> values, NodeId originator) {
+        super(fid, originator);
+        this.positions = positions;
+        this.values = values;
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " RemoveAt{" +
+                "fid=" + featureId() +
+                ", positions=" + Arrays.toString(positions) +
+                ", values=" + values +
+                '}';
+    }
+
+    /**
+     * Counts as the change of many references or many values, after the kind of its values.
+     */
+    @Override
+    public MessageType type() {
+        return !values.isEmpty() && values.get(0) instanceof EObject
+                ? MessageType.RemoveManyReferences
+                : MessageType.RemoveManyValues;
+    }
+
+    /**
+     * Values are removed from the highest position. A value that is no longer at its position was removed
+     * by the inverse of its opposite reference, or put back by it at the end of the list.
+     */
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        EList<Object> list = accessor(eObject).list(eObject);
+        for (int i = positions.length - 1; i >= 0; i--) {
+            Object value = values.get(i);
+            int position = positions[i];
+            if (position < list.size() && Objects.equals(list.get(position), value)) {
+                list.remove(position);
+            } else if (isReferencedBack(eObject, value) && list.get(list.size() - 1) == value) {
+                list.remove(list.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.ElementMessage;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Removes an element from a replicated sequence. Removing an element twice has no effect.
+ */
+public class RemoveElement extends ElementOperation {
+
+    public RemoveElement(FeatureId fid, ElementId element, NodeId originator) {
+        super(fid, element, originator);
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " RemoveElement{" +
+                "fid=" + featureId() +
+                ", element=" + element() +
+                '}';
+    }
+
+    @Override
+    public MessageType type() {
+        return MessageType.RemoveElement;
+    }
+
+    @Override
+    public UpdateMessage asMessage() {
+        return new ElementMessage(type(), featureId(), null, element(), null, null, getOriginator(), timestamp());
+    }
+
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        int index = sequenceOf(resource).remove(element());
+        EList<Object> list = accessor(eObject).list(eObject);
+        if (index >= 0 && index < list.size()) {
+            list.remove(index);
+        }
+    }
+}
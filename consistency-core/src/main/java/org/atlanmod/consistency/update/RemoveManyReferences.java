@@ -14,18 +14,15 @@
 
 package org.atlanmod.consistency.update;
 
-import org.atlanmod.consistency.NeoNode;
 import org.atlanmod.consistency.SharedResource;
 import org.atlanmod.consistency.core.*;
 import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
+import org.atlanmod.consistency.util.BulkRemoval;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EStructuralFeature;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -33,45 +30,45 @@ import java.util.List;
  *
  * @author AtlanMod team.
  */
-public class RemoveManyReferences extends BaseOperation {
-    protected final FeatureId fid;
+public class RemoveManyReferences extends PositionalOperation {
     final List<Id> oids;
 
     public RemoveManyReferences(FeatureId fid, List<Id> oids, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        super(fid, originator);
         this.oids = oids;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " RemoveManyReferences{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", values=" + oids +
                 '}';
     }
 
     @Override
-    public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.RemoveManyReferences, fid, oids, null, getOriginator());
+    public MessageType type() {
+        return MessageType.RemoveManyReferences;
     }
 
     @Override
-    public Id instanceId() {
-        return fid.asInstanceId();
+    public UpdateMessage asMessage() {
+        return withContext(new ValueMessage(type(), featureId(), oids, null, getOriginator(), timestamp()));
+    }
+
+    /**
+     * @return the positions of the removed references, before the removal
+     */
+    public List<Id> positions() {
+        return oids;
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(fid.toInt());
-        List<Object> tmp = (List<Object>) eObject.eGet(feature);
-        List<Object> ftr = new ArrayList<>();
-        
+        BitSet positions = new BitSet();
         for (Id id : oids) {
-            ftr.add(tmp.get(id.toInt()));
+            positions.set(id.toInt());
         }
-
-        ((Collection) ((BasicEObjectImpl) eObject).eGet(fid.toInt(),true,true)).removeAll(ftr);
-
+        BulkRemoval.removeAll(accessor(eObject).list(eObject), positions);
     }
 }
@@ -21,9 +21,11 @@ import org.atlanmod.consistency.core.NodeId;
 import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
+import org.atlanmod.consistency.util.BulkRemoval;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -31,36 +33,70 @@ import java.util.List;
  *
  * @author AtlanMod team.
  */
-public class RemoveManyValues extends BaseOperation {
-    private final FeatureId fid;
+public class RemoveManyValues extends PositionalOperation {
     private final List<Object> values;
+    private final int[] positions;
 
     public RemoveManyValues(FeatureId fid, List<Object> values, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        this(fid, values, null, originator);
+    }
+
+    /**
+     * @param positions the ascending positions of the removed values before the removal, or {@code null}
+     *                  to remove the first occurrences of {@code values}
+     */
+    public RemoveManyValues(FeatureId fid, List<Object> values, int[] positions, NodeId originator) {
+        super(fid, originator);
         this.values = values;
+        this.positions = positions;
+    }
+
+    public List<Object> values() {
+        return values;
+    }
+
+    /**
+     * @return the positions of the removed values, or {@code null} if they are removed by value
+     */
+    public int[] positions() {
+        return positions;
+    }
+
+    @Override
+    public boolean isPositional() {
+        return positions != null;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " RemoveManyValues{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", values=" + values +
+                (positions == null ? "" : ", positions=" + Arrays.toString(positions)) +
                 '}';
     }
 
     @Override
-    public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.RemoveManyValues, fid, values, null, getOriginator());
+    public MessageType type() {
+        return MessageType.RemoveManyValues;
     }
 
     @Override
-    public Id instanceId() {
-        return fid.asInstanceId();
+    public UpdateMessage asMessage() {
+        return withContext(new ValueMessage(type(), featureId(), values, positions, getOriginator(), timestamp()));
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        ((List<Object>)((BasicEObjectImpl)eObject).eGet(fid.toInt(),true, true)).removeAll(values);
+        List<?> list = accessor(eObject).list(eObject);
+        if (positions == null) {
+            BulkRemoval.removeAll(list, BulkRemoval.positionsOf(list, values));
+            return;
+        }
+        BitSet removed = new BitSet(list.size());
+        for (int position : positions) {
+            removed.set(position);
+        }
+        BulkRemoval.removeAll(list, removed);
     }
 }
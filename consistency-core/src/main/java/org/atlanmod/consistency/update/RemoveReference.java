@@ -54,14 +54,27 @@ public class RemoveReference extends RemoveManyReferences {
     @Override
     public String toString() {
         return getOriginator() + " RemoveReference{" +
-                "fid=" + super.fid +
+                "fid=" + featureId() +
                 ", oid=" + super.oids +
                 '}';
     }
 
+    /**
+     * The identifier of the removed object is not a position, and cannot be transformed.
+     */
+    @Override
+    public boolean isPositional() {
+        return false;
+    }
+
+    @Override
+    public MessageType type() {
+        return MessageType.RemoveReference;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.RemoveReference, fid, oids.get(0), null, getOriginator());
+        return new ValueMessage(type(), featureId(), oids.get(0), null, getOriginator(), timestamp());
     }
 
    /* @Override
@@ -74,7 +87,7 @@ public class RemoveReference extends RemoveManyReferences {
         //EStructuralFeature feature = (EStructuralFeature) ((BasicEObjectImpl)eObject).eGet(fid.toInt(), true, true);
         EStructuralFeature feature = eObject.eClass().getEStructuralFeature(fid.toInt());
 
-        EObject obj = resource.contents().get(oid);
+        EObject obj = resource.resolve(oid);
         ((Collection) feature).remove(obj);
     }*/
 }
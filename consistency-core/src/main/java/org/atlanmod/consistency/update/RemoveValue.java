@@ -21,9 +21,7 @@ import org.atlanmod.consistency.core.NodeId;
 import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 
 import java.lang.annotation.Inherited;
 import java.util.Objects;
@@ -33,38 +31,38 @@ import java.util.Objects;
  *
  * @author AtlanMod team.
  */
-public class RemoveValue extends BaseOperation {
-    private final FeatureId fid;
+public class RemoveValue extends FeatureOperation {
     private final Object value;
 
     public RemoveValue(FeatureId fid, Object value, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        super(fid, originator);
         this.value = value;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " RemoveValue{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", value=" + value +
                 '}';
     }
 
     @Override
-    public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.RemoveValue, fid, value, null, getOriginator());
+    public MessageType type() {
+        return MessageType.RemoveValue;
     }
 
     @Override
-    public Id instanceId() {
-        return fid.asInstanceId();
+    public UpdateMessage asMessage() {
+        return new ValueMessage(type(), featureId(), value, null, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        ((EList<Objects>) ((BasicEObjectImpl)eObject).eGet(fid.toInt(),true,true)).remove(value);
+        accessor(eObject).list(eObject).remove(value);
     }
 
-
+    public Object value() {
+        return value;
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Restores the previous value of a single-valued feature, or unsets it. Used as an inverse operation only.
+ * <p>
+ * The value is kept as is, so a reference to an object detached since then can be restored.
+ */
+public class Restore extends FeatureOperation {
+    private final Object value;
+    private final boolean wasSet;
+
+    public Restore(FeatureId fid, Object value, boolean wasSet, NodeId originator) {
+        super(fid, originator);
+        this.value = value;
+        this.wasSet = wasSet;
+    }
+
+    @Override
+    public String toString() {
+        return getOriginator() + " Restore{" +
+                "fid=" + featureId() +
+                ", value=" + value +
+                ", wasSet=" + wasSet +
+                '}';
+    }
+
+    @Override
+    public MessageType type() {
+        return wasSet ? MessageType.SetValue : MessageType.Unset;
+    }
+
+    @Override
+    public void execute(SharedResource resource, EObject eObject) {
+        if (wasSet) {
+            accessor(eObject).set(eObject, value);
+        } else {
+            accessor(eObject).unset(eObject);
+        }
+    }
+}
@@ -23,29 +23,26 @@ import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 
 /**
  * Created on 10/03/2017.
  *
  * @author AtlanMod team.
  *
- * Sets the object oid to the feature fid
+ * Sets the object oid to the feature featureId()
  */
-public class SetReference extends BaseOperation {
-    private final FeatureId fid;
+public class SetReference extends FeatureOperation {
     private final Id oid;
 
     public SetReference(FeatureId fid, Id oid, NodeId originator) {
-        super(originator);
-        this.fid = fid;
+        super(fid, originator);
         this.oid = oid;
     }
 
     @Override
     public String toString() {
         return getOriginator() + " SetReference{" +
-                "fid=" + fid +
+                "fid=" + featureId() +
                 ", oid=" + oid +
                 '}';
     }
@@ -55,14 +52,23 @@ public class SetReference extends BaseOperation {
         return oid;
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.SetReference;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.SetReference, fid, oid, null, getOriginator());
+        return new ValueMessage(type(), featureId(), oid, null, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        BasicEObjectImpl obj = (BasicEObjectImpl) resource.contents().get(fid.asInstanceId());
-        obj.eSet(fid.toInt(),eObject);
+        EObject obj = resource.resolve(featureId().asInstanceId());
+        accessor(obj).set(obj, eObject);
+    }
+
+    public Id reference() {
+        return oid;
     }
 }
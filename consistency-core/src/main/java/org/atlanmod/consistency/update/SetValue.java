@@ -21,7 +21,6 @@ import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EStructuralFeature;
 
 /**
  * Created on 10/03/2017.
@@ -47,14 +46,35 @@ public class SetValue extends FeatureOperation {
                 '}';
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.SetValue;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.SetValue, featureId(), value, previous, getOriginator());
+        return new ValueMessage(type(), featureId(), value, previous, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureId().low().toInt());
-        eObject.eSet(feature, value);
+        accessor(eObject).set(eObject, value);
+    }
+
+    /**
+     * Falls back to restoring {@link #previous()} when this operation was received rather than captured.
+     */
+    @Override
+    public Operation inverse() {
+        Operation inverse = super.inverse();
+        return inverse != null ? inverse : new Restore(featureId(), previous, previous != null, getOriginator());
+    }
+
+    public Object value() {
+        return value;
+    }
+
+    public Object previous() {
+        return previous;
     }
 }
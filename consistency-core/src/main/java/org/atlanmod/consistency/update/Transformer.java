@@ -0,0 +1,238 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency.update;
+
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.IdBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The transformation functions of the {@link PositionalOperation}s on a many-valued feature: an
+ * {@link AddValue} at a position, a removal of the values or references at some positions, and a
+ * {@link MoveValue}.
+ * <p>
+ * {@code transform(a, b, wins)} returns the operation having the effect of {@code a} once {@code b} has
+ * been applied, where {@code a} and {@code b} were issued concurrently on the same state. Applying
+ * {@code b} then {@code transform(a, b, wins)} gives the same list as applying {@code a} then
+ * {@code transform(b, a, !wins)}. The flag orders the operations that insert at the same position, and
+ * decides which target is kept when both move the same element.
+ * <p>
+ * A move is handled as the removal of the element followed by its insertion, its target position being
+ * relative to the list without the element. An operation whose elements were all removed concurrently
+ * transforms to {@code null}.
+ */
+public final class Transformer {
+
+    private Transformer() {
+    }
+
+    /**
+     * Transforms {@code operation} against {@code applied}, issued concurrently on the same state.
+     *
+     * @param wins whether {@code operation} goes first when both insert at the same position
+     * @return the operation to apply after {@code applied}, or {@code null} if it has no effect left
+     */
+    public static PositionalOperation transform(PositionalOperation operation, PositionalOperation applied, boolean wins) {
+        if (!operation.isPositional() || !applied.isPositional()
+                || !operation.featureId().equals(applied.featureId())) {
+            return operation;
+        }
+        if (applied instanceof AddValue) {
+            return afterInsertion(operation, ((AddValue) applied).position(), wins);
+        } else if (applied instanceof MoveValue) {
+            MoveValue move = (MoveValue) applied;
+            return afterMove(operation, move.from(), move.to(), wins);
+        } else {
+            return afterRemoval(operation, sorted(positionsOf(applied)));
+        }
+    }
+
+    /**
+     * @return the positions removed by a removal, before the removal
+     */
+    public static int[] positionsOf(PositionalOperation removal) {
+        if (removal instanceof RemoveManyValues) {
+            return ((RemoveManyValues) removal).positions();
+        }
+        List<Id> ids = ((RemoveManyReferences) removal).positions();
+        int[] positions = new int[ids.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = ids.get(i).toInt();
+        }
+        return positions;
+    }
+
+    private static PositionalOperation afterInsertion(PositionalOperation operation, int inserted, boolean wins) {
+        if (operation instanceof AddValue) {
+            AddValue add = (AddValue) operation;
+            int position = add.position();
+            return inserted < position || (inserted == position && !wins) ? insertion(add, position + 1) : add;
+        } else if (operation instanceof MoveValue) {
+            MoveValue move = (MoveValue) operation;
+            int from = move.from();
+            int to = move.to();
+            int insertedWithout = inserted - (from < inserted ? 1 : 0);
+            return move(move,
+                    from + (inserted <= from ? 1 : 0),
+                    to + (insertedWithout < to || (insertedWithout == to && !wins) ? 1 : 0));
+        } else {
+            int[] positions = positionsOf(operation);
+            int[] shifted = new int[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                shifted[i] = positions[i] + (inserted <= positions[i] ? 1 : 0);
+            }
+            return removal(operation, shifted, identity(positions.length), positions.length);
+        }
+    }
+
+    private static PositionalOperation afterRemoval(PositionalOperation operation, int[] removed) {
+        if (operation instanceof AddValue) {
+            AddValue add = (AddValue) operation;
+            int position = add.position() - countBelow(removed, add.position());
+            return position == add.position() ? add : insertion(add, position);
+        } else if (operation instanceof MoveValue) {
+            MoveValue move = (MoveValue) operation;
+            int from = move.from();
+            if (Arrays.binarySearch(removed, from) >= 0) {
+                return null;
+            }
+            int to = move.to();
+            for (int each : removed) {
+                if (each - (from < each ? 1 : 0) < move.to()) {
+                    to--;
+                }
+            }
+            return move(move, from - countBelow(removed, from), to);
+        } else {
+            int[] positions = positionsOf(operation);
+            int[] kept = new int[positions.length];
+            int[] sources = new int[positions.length];
+            int count = 0;
+            for (int i = 0; i < positions.length; i++) {
+                if (Arrays.binarySearch(removed, positions[i]) < 0) {
+                    kept[count] = positions[i] - countBelow(removed, positions[i]);
+                    sources[count++] = i;
+                }
+            }
+            return removal(operation, kept, sources, count);
+        }
+    }
+
+    private static PositionalOperation afterMove(PositionalOperation operation, int from, int to, boolean wins) {
+        if (operation instanceof AddValue) {
+            AddValue add = (AddValue) operation;
+            int position = add.position() - (from < add.position() ? 1 : 0);
+            position += to < position || (to == position && !wins) ? 1 : 0;
+            return position == add.position() ? add : insertion(add, position);
+        } else if (operation instanceof MoveValue) {
+            MoveValue move = (MoveValue) operation;
+            if (move.from() == from) {
+                // Both move the same element: the winner sets its target
+                return wins ? move(move, to, move.to()) : null;
+            }
+            // Removal of the other element, then its insertion, in the list without the element moved here
+            int removedWithout = from - (move.from() < from ? 1 : 0);
+            int target = move.to() - (removedWithout < move.to() ? 1 : 0);
+            int movedWithout = move.from() - (from < move.from() ? 1 : 0);
+            int insertedWithout = to - (movedWithout < to ? 1 : 0);
+            target += insertedWithout < target || (insertedWithout == target && !wins) ? 1 : 0;
+            return move(move, shift(move.from(), from, to), target);
+        } else {
+            int[] positions = positionsOf(operation);
+            int[] moved = new int[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                moved[i] = positions[i] == from ? to : shift(positions[i], from, to);
+            }
+            return removal(operation, moved, identity(positions.length), positions.length);
+        }
+    }
+
+    /**
+     * Returns the position of an element other than the moved one, after the move.
+     */
+    private static int shift(int position, int from, int to) {
+        int without = position - (from < position ? 1 : 0);
+        return without + (to <= without ? 1 : 0);
+    }
+
+    private static int countBelow(int[] sorted, int position) {
+        int index = Arrays.binarySearch(sorted, position);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int[] sorted(int[] positions) {
+        int[] sorted = positions.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int[] identity(int size) {
+        int[] identity = new int[size];
+        for (int i = 0; i < size; i++) {
+            identity[i] = i;
+        }
+        return identity;
+    }
+
+    private static AddValue insertion(AddValue add, int position) {
+        return add.derive(new AddValue(add.featureId(), add.value(), position, add.getOriginator()));
+    }
+
+    private static MoveValue move(MoveValue move, int from, int to) {
+        return move.derive(new MoveValue(move.featureId(), from, to, move.getOriginator()));
+    }
+
+    /**
+     * Rebuilds a removal of the {@code count} first {@code positions}, the i-th one standing for the
+     * {@code sources[i]}-th element removed by {@code removal}.
+     */
+    private static PositionalOperation removal(PositionalOperation removal, int[] positions, int[] sources, int count) {
+        if (count == 0) {
+            return null;
+        }
+        // Insertion sort by position, removals are small
+        for (int i = 1; i < count; i++) {
+            int position = positions[i];
+            int source = sources[i];
+            int j = i - 1;
+            for (; j >= 0 && positions[j] > position; j--) {
+                positions[j + 1] = positions[j];
+                sources[j + 1] = sources[j];
+            }
+            positions[j + 1] = position;
+            sources[j + 1] = source;
+        }
+
+        if (removal instanceof RemoveManyValues) {
+            List<Object> values = ((RemoveManyValues) removal).values();
+            List<Object> kept = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                kept.add(values.get(sources[i]));
+            }
+            return removal.derive(new RemoveManyValues(removal.featureId(), kept,
+                    Arrays.copyOf(positions, count), removal.getOriginator()));
+        } else {
+            List<Id> kept = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                kept.add(IdBuilder.fromInt(positions[i]));
+            }
+            return removal.derive(new RemoveManyReferences(removal.featureId(), kept, removal.getOriginator()));
+        }
+    }
+}
@@ -21,7 +21,6 @@ import org.atlanmod.consistency.message.MessageType;
 import org.atlanmod.consistency.message.UpdateMessage;
 import org.atlanmod.consistency.message.ValueMessage;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EStructuralFeature;
 
 /**
  * Created on 10/03/2017.
@@ -41,14 +40,18 @@ public class Unset extends FeatureOperation {
                 '}';
     }
 
+    @Override
+    public MessageType type() {
+        return MessageType.Unset;
+    }
+
     @Override
     public UpdateMessage asMessage() {
-        return new ValueMessage(MessageType.Unset, featureId(), null, null, getOriginator());
+        return new ValueMessage(type(), featureId(), null, null, getOriginator(), timestamp());
     }
 
     @Override
     public void execute(SharedResource resource, EObject eObject) {
-        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureId().low().toInt());
-        eObject.eUnset(feature);
+        accessor(eObject).unset(eObject);
     }
 }
@@ -0,0 +1,170 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.util;
+
+import com.google.common.collect.Maps;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.NotificationChain;
+import org.eclipse.emf.common.notify.NotifyingList;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.ENotificationImpl;
+import org.eclipse.emf.ecore.util.EcoreEList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Removal of many elements of a list at once, designated by their positions.
+ */
+public final class BulkRemoval {
+
+    private BulkRemoval() {
+    }
+
+    /**
+     * Removes the elements at the positions set in {@code positions}.
+     * <p>
+     * Removing every element is delegated to {@link List#clear()}. Random-access lists are compacted in
+     * place in a single pass. The {@link org.eclipse.emf.common.util.EList}s of many-valued features are
+     * compacted the same way, then maintain the inverse reference of each removed element and notify a
+     * single {@link Notification#REMOVE_MANY}. Other notifying lists are left to remove their elements one
+     * by one, from the highest position; other sequential lists are walked once.
+     *
+     * @param list      the list to modify
+     * @param positions the positions of the elements to remove, relative to the list before the removal
+     * @return the number of removed elements
+     */
+    public static <E> int removeAll(List<E> list, BitSet positions) {
+        int count = positions.cardinality();
+        if (count == 0) {
+            return 0;
+        }
+        int size = list.size();
+        checkElementIndex(positions.length() - 1, size);
+
+        if (count == size) {
+            list.clear();
+        } else if (list instanceof EcoreEList) {
+            removeAll((EcoreEList<E>) list, positions, count);
+        } else if (list instanceof NotifyingList) {
+            for (int i = positions.length() - 1; i >= 0; i = positions.previousSetBit(i - 1)) {
+                list.remove(i);
+            }
+        } else if (!(list instanceof RandomAccess)) {
+            Iterator<E> it = list.iterator();
+            for (int i = 0, last = positions.length(); i < last; i++) {
+                it.next();
+                if (positions.get(i)) {
+                    it.remove();
+                }
+            }
+        } else {
+            int write = positions.nextSetBit(0);
+            for (int read = positions.nextClearBit(write); read < size; read = positions.nextClearBit(read + 1)) {
+                list.set(write++, list.get(read));
+            }
+            list.subList(write, size).clear();
+        }
+        return count;
+    }
+
+    private static <E> void removeAll(EcoreEList<E> list, BitSet positions, int count) {
+        Object[] data = list.data();
+        int size = list.size();
+        List<E> removed = new ArrayList<>(count);
+        int[] indices = new int[count];
+        int write = positions.nextSetBit(0);
+        for (int read = write, i = 0; read < size; read++) {
+            if (positions.get(read)) {
+                @SuppressWarnings("unchecked")
+                E each = (E) data[read];
+                removed.add(each);
+                indices[i++] = read;
+            } else {
+                data[write++] = data[read];
+            }
+        }
+        Arrays.fill(data, write, size, null);
+        list.setData(write, data);
+
+        EStructuralFeature feature = list.getEStructuralFeature();
+        NotificationChain notifications = null;
+        if (hasInverse(feature)) {
+            for (E each : removed) {
+                if (each != null) {
+                    notifications = list.inverseRemove(each, notifications);
+                }
+            }
+        }
+        InternalEObject owner = (InternalEObject) list.getEObject();
+        if (owner.eNotificationRequired()) {
+            Notification notification = new ENotificationImpl(owner, Notification.REMOVE_MANY, feature, removed, indices, indices[0], true);
+            if (notifications == null) {
+                owner.eNotify(notification);
+            } else {
+                notifications.add(notification);
+            }
+        }
+        if (notifications != null) {
+            notifications.dispatch();
+        }
+    }
+
+    private static boolean hasInverse(EStructuralFeature feature) {
+        if (!(feature instanceof EReference)) {
+            return false;
+        }
+        EReference reference = (EReference) feature;
+        return reference.isContainment() || reference.getEOpposite() != null;
+    }
+
+    /**
+     * Returns the positions of the first occurrences of {@code values} in {@code list}, each value being
+     * matched as many times as it appears in {@code values}.
+     */
+    public static BitSet positionsOf(List<?> list, List<?> values) {
+        Map<Object, Integer> pending = Maps.newHashMapWithExpectedSize(values.size());
+        for (Object each : values) {
+            pending.merge(each, 1, Integer::sum);
+        }
+
+        BitSet positions = new BitSet(list.size());
+        int i = 0;
+        for (Object each : list) {
+            Integer remaining = pending.get(each);
+            if (remaining != null) {
+                positions.set(i);
+                if (remaining == 1) {
+                    pending.remove(each);
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                } else {
+                    pending.put(each, remaining - 1);
+                }
+            }
+            i++;
+        }
+        return positions;
+    }
+}
@@ -45,11 +45,11 @@ public class ConsistencyUtil {
     }
 
     public static boolean isEReference(EStructuralFeature feature) {
-        return EReference.class.isAssignableFrom(feature.getClass());
+        return feature instanceof EReference;
     }
 
     public static boolean isEAttribute(EStructuralFeature feature) {
-        return EAttribute.class.isAssignableFrom(feature.getClass());
+        return feature instanceof EAttribute;
     }
 
     public static void output(EObject eObject) {
@@ -0,0 +1,221 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+package org.atlanmod.consistency.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A table of objects indexed by a dense, non-negative {@code int}, such as the local instance number
+ * of an {@link org.atlanmod.consistency.core.InstanceId}.
+ * <p>
+ * Slots are stored in fixed-size segments that are allocated on first use, so that the table grows
+ * without copying its elements. A removed slot is left as a tombstone: it is no longer visible
+ * through {@link #get(int)} or iteration, but {@link #isTombstone(int)} still tells it apart from a
+ * slot that was never used.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <E> the type of the elements
+ */
+public class ObjectTable<E> implements Iterable<E> {
+
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private static final Object TOMBSTONE = new Object();
+
+    private Object[][] segments = new Object[4][];
+
+    /**
+     * The number of live elements.
+     */
+    private int size;
+
+    /**
+     * One past the highest index ever written.
+     */
+    private int limit;
+
+    public E get(int index) {
+        if (index < 0 || index >= limit) {
+            return null;
+        }
+        Object[] segment = segments[index >>> SEGMENT_SHIFT];
+        return segment == null ? null : unmask(segment[index & SEGMENT_MASK]);
+    }
+
+    /**
+     * Stores {@code value} at {@code index}.
+     *
+     * @return the element previously stored at {@code index}, or {@code null}
+     */
+    public E put(int index, E value) {
+        checkArgument(index >= 0, "Negative index: %s", index);
+        Objects.requireNonNull(value);
+
+        Object[] segment = segmentFor(index);
+        E previous = unmask(segment[index & SEGMENT_MASK]);
+        segment[index & SEGMENT_MASK] = value;
+        if (previous == null) {
+            size++;
+        }
+        limit = Math.max(limit, index + 1);
+        return previous;
+    }
+
+    /**
+     * Removes the element stored at {@code index} and leaves a tombstone in its slot.
+     *
+     * @return the removed element, or {@code null}
+     */
+    public E remove(int index) {
+        E previous = get(index);
+        if (previous != null) {
+            segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK] = TOMBSTONE;
+            size--;
+        }
+        return previous;
+    }
+
+    public boolean isTombstone(int index) {
+        if (index < 0 || index >= limit) {
+            return false;
+        }
+        Object[] segment = segments[index >>> SEGMENT_SHIFT];
+        return segment != null && segment[index & SEGMENT_MASK] == TOMBSTONE;
+    }
+
+    public boolean contains(Object value) {
+        int segmentCount = (limit + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+        for (int s = 0; s < segmentCount; s++) {
+            Object[] segment = segments[s];
+            if (segment != null) {
+                for (Object each : segment) {
+                    if (each != null && each != TOMBSTONE && each.equals(value)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        segments = new Object[4][];
+        size = 0;
+        limit = 0;
+    }
+
+    /**
+     * Returns the n-th live element, in index order.
+     */
+    public E nth(int n) {
+        int count = 0;
+        for (E each : this) {
+            if (count++ == n) {
+                return each;
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + size);
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        for (int i = 0; i < limit; i++) {
+            Object[] segment = segments[i >>> SEGMENT_SHIFT];
+            if (segment == null) {
+                i |= SEGMENT_MASK;
+                continue;
+            }
+            E each = unmask(segment[i & SEGMENT_MASK]);
+            if (each != null) {
+                action.accept(each);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int cursor = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return cursor < limit;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                E each = get(cursor);
+                cursor = advance(cursor + 1);
+                return each;
+            }
+        };
+    }
+
+    /**
+     * Returns the first index, starting at {@code from}, that holds a live element, or {@link #limit}.
+     */
+    private int advance(int from) {
+        int i = from;
+        while (i < limit) {
+            Object[] segment = segments[i >>> SEGMENT_SHIFT];
+            if (segment == null) {
+                i = (i | SEGMENT_MASK) + 1;
+            } else if (unmask(segment[i & SEGMENT_MASK]) == null) {
+                i++;
+            } else {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private Object[] segmentFor(int index) {
+        int s = index >>> SEGMENT_SHIFT;
+        if (s >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(s + 1, segments.length * 2));
+        }
+        Object[] segment = segments[s];
+        if (segment == null) {
+            segment = new Object[SEGMENT_SIZE];
+            segments[s] = segment;
+        }
+        return segment;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E unmask(Object slot) {
+        return slot == TOMBSTONE ? null : (E) slot;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+package org.atlanmod.consistency.util;
+
+import com.google.common.collect.Maps;
+import org.atlanmod.consistency.core.ElementId;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A replicated growable array (RGA): the order of the elements of a sequence, identified by
+ * {@link ElementId}s, that converges on every node whatever the order in which concurrent inserts and
+ * removes are applied, provided each insert is applied after the insert of its anchor.
+ * <p>
+ * An element is inserted after an anchor element, and before the elements inserted concurrently after the
+ * same anchor with a smaller identifier. Removed elements are kept as invisible tombstones, so that they
+ * can still be used as anchors.
+ * <p>
+ * A moved value gets a new element, which {@link #replace(ElementId, ElementId) replaces} its previous one,
+ * so that the concurrent moves of a value can be resolved to a single element.
+ * <p>
+ * Elements are kept in a treap ordered by position, whose nodes count the visible elements of their
+ * subtree: converting between an element and its visible position is O(log n), as is an insertion or a
+ * removal. Elements are found by identifier in O(1).
+ * <p>
+ * This class is not thread-safe.
+ */
+public class Rga {
+
+    private final Map<ElementId, Node> nodes = Maps.newHashMap();
+    private final Map<ElementId, ElementId> replacements = Maps.newHashMap();
+    private Node root;
+
+    /**
+     * Inserts {@code element} after {@code anchor}.
+     *
+     * @param anchor  the element to insert after, or {@code null} to insert at the head
+     * @param element the identifier of the new element
+     * @return the visible position of the new element, or {@code -1} if it was already inserted
+     * @throws IllegalArgumentException if {@code anchor} is unknown
+     */
+    public int insert(ElementId anchor, ElementId element) {
+        if (nodes.containsKey(element)) {
+            return -1;
+        }
+        int position;
+        Node cursor;
+        if (anchor == null) {
+            position = 0;
+            cursor = first(root);
+        } else {
+            Node node = nodes.get(anchor);
+            if (node == null) {
+                throw new IllegalArgumentException("Unknown anchor: " + anchor);
+            }
+            position = positionOf(node) + 1;
+            cursor = next(node);
+        }
+        while (cursor != null && cursor.id.compareTo(element) > 0) {
+            position++;
+            cursor = next(cursor);
+        }
+
+        Node node = new Node(element);
+        nodes.put(element, node);
+        Node[] split = split(root, position);
+        root = merge(merge(split[0], node), split[1]);
+        root.parent = null;
+        return indexOf(node);
+    }
+
+    /**
+     * Removes {@code element}, leaving a tombstone.
+     *
+     * @return the visible position the element had, or {@code -1} if it is unknown or already removed
+     */
+    public int remove(ElementId element) {
+        Node node = nodes.get(element);
+        if (node == null || !node.visible) {
+            return -1;
+        }
+        int index = indexOf(node);
+        node.visible = false;
+        for (Node each = node; each != null; each = each.parent) {
+            each.count--;
+        }
+        return index;
+    }
+
+    /**
+     * @return the visible position of {@code element}, or {@code -1} if it is unknown or removed
+     */
+    public int indexOf(ElementId element) {
+        Node node = nodes.get(element);
+        return node == null || !node.visible ? -1 : indexOf(node);
+    }
+
+    /**
+     * @return the identifier of the visible element at {@code index}
+     */
+    public ElementId get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int left = count(node.left);
+            if (index < left) {
+                node = node.left;
+            } else if (node.visible && index == left) {
+                return node.id;
+            } else {
+                index -= left + (node.visible ? 1 : 0);
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Records that the value of {@code previous} is now held by {@code element}.
+     */
+    public void replace(ElementId previous, ElementId element) {
+        replacements.put(previous, element);
+    }
+
+    /**
+     * @return the visible element now holding the value of {@code element}, following its replacements, or
+     * {@code null} if it was not replaced or the value was removed since
+     */
+    public ElementId replacementOf(ElementId element) {
+        ElementId replacement = replacements.get(element);
+        if (replacement == null) {
+            return null;
+        }
+        for (ElementId next = replacements.get(replacement); next != null; next = replacements.get(next)) {
+            replacement = next;
+        }
+        return indexOf(replacement) < 0 ? null : replacement;
+    }
+
+    public boolean contains(ElementId element) {
+        return nodes.containsKey(element);
+    }
+
+    /**
+     * @return the number of visible elements
+     */
+    public int size() {
+        return count(root);
+    }
+
+    /**
+     * @return the number of elements, tombstones included
+     */
+    public int length() {
+        return total(root);
+    }
+
+    private int indexOf(Node node) {
+        int index = count(node.left);
+        for (Node child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+            if (parent.right == child) {
+                index += count(parent.left) + (parent.visible ? 1 : 0);
+            }
+        }
+        return index;
+    }
+
+    private int positionOf(Node node) {
+        int position = total(node.left);
+        for (Node child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+            if (parent.right == child) {
+                position += total(parent.left) + 1;
+            }
+        }
+        return position;
+    }
+
+    private static Node first(Node node) {
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private static Node next(Node node) {
+        if (node.right != null) {
+            return first(node.right);
+        }
+        Node child = node;
+        Node parent = node.parent;
+        while (parent != null && parent.right == child) {
+            child = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * Splits {@code node} into its first {@code position} elements and the others.
+     */
+    private static Node[] split(Node node, int position) {
+        if (node == null) {
+            return new Node[2];
+        }
+        Node[] result;
+        if (total(node.left) < position) {
+            result = split(node.right, position - total(node.left) - 1);
+            node.right = result[0];
+            result[0] = node;
+        } else {
+            result = split(node.left, position);
+            node.left = result[1];
+            result[1] = node;
+        }
+        node.update();
+        if (result[0] != null) {
+            result[0].parent = null;
+        }
+        if (result[1] != null) {
+            result[1].parent = null;
+        }
+        return result;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    private static int count(Node node) {
+        return node == null ? 0 : node.count;
+    }
+
+    private static int total(Node node) {
+        return node == null ? 0 : node.total;
+    }
+
+    private static class Node {
+        private final ElementId id;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private boolean visible = true;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private int count = 1;
+        private int total = 1;
+
+        private Node(ElementId id) {
+            this.id = id;
+        }
+
+        private void update() {
+            count = (visible ? 1 : 0) + Rga.count(left) + Rga.count(right);
+            total = 1 + Rga.total(left) + Rga.total(right);
+            if (left != null) {
+                left.parent = this;
+            }
+            if (right != null) {
+                right.parent = this;
+            }
+        }
+    }
+}
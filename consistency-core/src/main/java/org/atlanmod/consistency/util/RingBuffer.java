@@ -0,0 +1,401 @@
+/*
+ *
+ *  * Copyright (c) 2013-2017 Atlanmod INRIA LINA Mines Nantes.
+ *  * All rights reserved. This program and the accompanying materials
+ *  * are made available under the terms of the Eclipse Public License v1.0
+ *  * which accompanies this distribution, and is available at
+ *  * http://www.eclipse.org/legal/epl-v10.html
+ *  *
+ *  * Contributors:
+ *  *     Atlanmod INRIA LINA Mines Nantes - initial API and implementation
+ *
+ *
+ */
+
+
+package org.atlanmod.consistency.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A bounded ring of preallocated slots between a single producer and several consumers.
+ * <p>
+ * Each slot carries a sequence number telling whether it is free or published, so that neither side
+ * takes a lock nor allocates: the producer writes a slot and publishes it, and consumers claim published
+ * slots with a compare-and-set on the head, several at a time with {@link #drainTo(Collection, int)}.
+ * Consumers that wait for elements, in {@link #take()} and {@link #poll(long, TimeUnit)}, follow a
+ * {@link WaitStrategy}.
+ * <p>
+ * The producer never blocks: when the ring is full, elements spill into an overflow list, and are moved
+ * into the ring in order as slots are released, on the next {@link #offer(Object)} or {@link #flush()},
+ * or by any consumer that finds the ring empty. Only these moves take a lock, and only while there is an
+ * overflow.
+ * <p>
+ * {@link #offer(Object)} and its variants must be called from a single thread: the first thread that
+ * offers an element becomes the producer, and offers from other threads are rejected. The size and the
+ * iterator are weakly consistent.
+ *
+ * @param <E> the type of the elements
+ */
+public class RingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * How consumers wait for an element.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins on the head of the ring: lowest latency, burns a core.
+         */
+        BUSY_SPIN,
+        /**
+         * Spins, yielding the processor between checks.
+         */
+        YIELDING,
+        /**
+         * Parks for a short time between checks.
+         */
+        SLEEPING,
+        /**
+         * Waits on a condition signaled when elements are published or overflow, which then takes a lock
+         * if a consumer waits.
+         */
+        BLOCKING
+    }
+
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Object[] slots;
+    private final int mask;
+
+    /**
+     * For each slot at position {@code p}: {@code p} if free for the producer, {@code p + 1} if published.
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head = new AtomicLong();
+    private long tail;
+    private volatile long published;
+
+    /**
+     * The elements offered while the ring was full, guarded by {@link #overflowLock}, like the moves of
+     * the producer's tail while it is not empty.
+     */
+    private final ArrayDeque<E> overflow = new ArrayDeque<>();
+    private final ReentrantLock overflowLock = new ReentrantLock();
+    private volatile int overflowSize;
+    private volatile Thread producer;
+
+    private volatile WaitStrategy waitStrategy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public RingBuffer() {
+        this(DEFAULT_CAPACITY, WaitStrategy.BLOCKING);
+    }
+
+    /**
+     * @param capacity the number of slots, a power of two
+     */
+    public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+        checkArgument(Integer.bitCount(capacity) == 1, "capacity must be a power of two: %s", capacity);
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.waitStrategy = requireNonNull(waitStrategy);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = requireNonNull(waitStrategy);
+    }
+
+    /**
+     * Publishes an element, or adds it to the overflow if the ring is full.
+     *
+     * @return {@code true}
+     * @throws IllegalStateException if called from another thread than the producer
+     */
+    @Override
+    public boolean offer(E element) {
+        requireNonNull(element);
+        checkProducer();
+        if (overflowSize == 0 && publish(element)) {
+            signal();
+            return true;
+        }
+        overflowLock.lock();
+        try {
+            publishOverflow();
+            if (overflow.isEmpty() && publish(element)) {
+                signal();
+            } else {
+                overflow.addLast(element);
+                overflowSize = overflow.size();
+                signal();
+            }
+        } finally {
+            overflowLock.unlock();
+        }
+        return true;
+    }
+
+    private void checkProducer() {
+        Thread current = Thread.currentThread();
+        if (producer != current) {
+            synchronized (this) {
+                if (producer == null) {
+                    producer = current;
+                }
+            }
+            checkState(producer == current, "%s offers to a ring produced by %s", current, producer);
+        }
+    }
+
+    @Override
+    public void put(E element) {
+        offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) {
+        return offer(element);
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence < position + 1) {
+                return flush() ? poll() : null;
+            }
+            if (sequence == position + 1 && head.compareAndSet(position, position + 1)) {
+                return release(position);
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return await(Long.MAX_VALUE);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(unit.toNanos(timeout));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long position = head.get();
+        int index = (int) position & mask;
+        return sequences.get(index) == position + 1 ? (E) slots[index] : null;
+    }
+
+    /**
+     * Claims the published elements in batches, and moves them to {@code collection}, in order.
+     */
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            long position = head.get();
+            int count = 0;
+            while (drained + count < maxElements && count < slots.length
+                    && sequences.get((int) (position + count) & mask) == position + count + 1) {
+                count++;
+            }
+            if (count == 0) {
+                if (flush()) {
+                    continue;
+                }
+                break;
+            }
+            if (head.compareAndSet(position, position + count)) {
+                for (int i = 0; i < count; i++) {
+                    collection.add(release(position + i));
+                }
+                drained += count;
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        long size = published - head.get() + overflowSize;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the published elements, then of the overflow.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        for (long position = head.get(); ; position++) {
+            int index = (int) position & mask;
+            Object element = slots[index];
+            if (sequences.get(index) != position + 1 || element == null) {
+                break;
+            }
+            snapshot.add((E) element);
+        }
+        if (overflowSize > 0) {
+            overflowLock.lock();
+            try {
+                snapshot.addAll(overflow);
+            } finally {
+                overflowLock.unlock();
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private boolean publish(E element) {
+        int index = (int) tail & mask;
+        if (sequences.get(index) != tail) {
+            return false;
+        }
+        slots[index] = element;
+        sequences.lazySet(index, tail + 1);
+        published = ++tail;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E release(long position) {
+        int index = (int) position & mask;
+        E element = (E) slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, position + slots.length);
+        return element;
+    }
+
+    /**
+     * Moves the overflow into the released slots. May be called from any thread.
+     *
+     * @return {@code true} if an element was moved
+     */
+    public boolean flush() {
+        if (overflowSize == 0) {
+            return false;
+        }
+        overflowLock.lock();
+        try {
+            return publishOverflow();
+        } finally {
+            overflowLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the overflow into the released slots, with {@link #overflowLock} held. The size of the
+     * overflow is written last, so that the producer sees the tail moved by a consumer once it is empty.
+     */
+    private boolean publishOverflow() {
+        boolean moved = false;
+        while (!overflow.isEmpty() && publish(overflow.peekFirst())) {
+            overflow.removeFirst();
+            moved = true;
+        }
+        overflowSize = overflow.size();
+        if (moved) {
+            signal();
+        }
+        return moved;
+    }
+
+    private void signal() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private E await(long nanos) throws InterruptedException {
+        long deadline = nanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + nanos;
+        while (true) {
+            E element = poll();
+            if (element != null) {
+                return element;
+            }
+            long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    break;
+                case YIELDING:
+                    Thread.yield();
+                    break;
+                case SLEEPING:
+                    LockSupport.parkNanos(Math.min(SLEEP_NANOS, remaining));
+                    break;
+                default:
+                    block(remaining);
+            }
+        }
+    }
+
+    private void block(long nanos) throws InterruptedException {
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            if (peek() == null && overflowSize == 0) {
+                notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+}
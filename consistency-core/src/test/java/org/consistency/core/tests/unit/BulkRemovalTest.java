@@ -0,0 +1,110 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.MultiValuesExample;
+import graph.Vertex;
+import org.atlanmod.consistency.util.BulkRemoval;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+class BulkRemovalTest {
+
+    @Test
+    void testCompactPlainList() {
+        List<Integer> list = new ArrayList<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6));
+        BitSet positions = new BitSet();
+        positions.set(1);
+        positions.set(2);
+        positions.set(5);
+
+        assertThat(BulkRemoval.removeAll(list, positions)).isEqualTo(3);
+        assertThat(list).containsExactly(0, 3, 4, 6);
+    }
+
+    @Test
+    void testRemoveFromEList() {
+        MultiValuesExample example = GraphFactory.eINSTANCE.createMultiValuesExample();
+        example.getNumbers().addAll(Arrays.asList(7, 8, 7, 9, 7));
+
+        BitSet positions = BulkRemoval.positionsOf(example.getNumbers(), Arrays.asList(7, 9, 7));
+        BulkRemoval.removeAll(example.getNumbers(), positions);
+
+        assertThat(example.getNumbers()).containsExactly(8, 7);
+    }
+
+    @Test
+    void testCompactSequentialList() {
+        List<Integer> list = new LinkedList<>(Arrays.asList(0, 1, 2, 3, 4));
+        BitSet positions = new BitSet();
+        positions.set(0);
+        positions.set(3);
+
+        BulkRemoval.removeAll(list, positions);
+
+        assertThat(list).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    void testRemoveContainedObjects() {
+        GraphFactory factory = GraphFactory.eINSTANCE;
+        Graph graph = factory.createGraph();
+        for (int i = 0; i < 5; i++) {
+            graph.getVertices().add(factory.createVertex());
+        }
+        List<Vertex> vertices = new ArrayList<>(graph.getVertices());
+        List<Notification> notifications = new ArrayList<>();
+        graph.eAdapters().add(new AdapterImpl() {
+            @Override
+            public void notifyChanged(Notification notification) {
+                notifications.add(notification);
+            }
+        });
+        BitSet positions = new BitSet();
+        positions.set(1);
+        positions.set(3);
+
+        BulkRemoval.removeAll(graph.getVertices(), positions);
+
+        assertThat(graph.getVertices()).containsExactly(vertices.get(0), vertices.get(2), vertices.get(4));
+        assertThat(vertices.get(1).getOwner()).isNull();
+        assertThat(vertices.get(3).getOwner()).isNull();
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0).getEventType()).isEqualTo(Notification.REMOVE_MANY);
+        assertThat(notifications.get(0).getOldValue()).isEqualTo(Arrays.asList(vertices.get(1), vertices.get(3)));
+        assertThat((int[]) notifications.get(0).getNewValue()).containsExactly(1, 3);
+    }
+
+    @Test
+    void testRemoveFromLargeEList() {
+        int size = 500_000;
+        MultiValuesExample example = GraphFactory.eINSTANCE.createMultiValuesExample();
+        EList<Integer> numbers = example.getNumbers();
+        List<Integer> values = new ArrayList<>(size);
+        BitSet positions = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+            if (i % 2 == 0) {
+                positions.set(i);
+            }
+        }
+        numbers.addAll(values);
+
+        assertTimeout(Duration.ofSeconds(1), () -> BulkRemoval.removeAll(numbers, positions));
+        assertThat(numbers).hasSize(size / 2);
+        assertThat(numbers.get(0)).isEqualTo(1);
+        assertThat(numbers.get(size / 2 - 1)).isEqualTo(size - 1);
+    }
+}
@@ -0,0 +1,184 @@
+package org.consistency.core.tests.unit;
+
+import graph.Edge;
+import graph.Graph;
+import graph.GraphFactory;
+import graph.Vertex;
+import org.atlanmod.consistency.Checkpoint;
+import org.atlanmod.consistency.History;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.WriteAheadLog;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.Operation;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckpointTest {
+
+    private final GraphFactory factory = GraphFactory.eINSTANCE;
+    private SharedResource resource;
+    private History history;
+    private Graph graph;
+    private Path directory;
+
+    @BeforeEach
+    void setup() {
+        NeoNode node = new NeoNode(new Broker());
+        URI uri = URI.createURI("org.atlanmod.consistency.core.CheckpointTest:resource");
+        node.attachResource(uri);
+        resource = node.getSharedResourceSet().getSharedResource(uri);
+        history = resource.getHistory();
+
+        graph = factory.createGraph();
+        resource.getContents().add(graph);
+        for (int i = 0; i < 3; i++) {
+            Vertex vertex = factory.createVertex();
+            vertex.setLabel("v" + i);
+            vertex.setWeight(i);
+            graph.getVertices().add(vertex);
+        }
+        Edge edge = factory.createEdge();
+        edge.setFrom(graph.getVertices().get(0));
+        edge.setTo(graph.getVertices().get(2));
+        graph.getEdges().add(edge);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(each -> each.toFile().delete());
+        }
+    }
+
+    @Test
+    void testRecoverFromCheckpointAndTail() {
+        Checkpoint checkpoint = history.checkpoint();
+        assertThat(checkpoint.sequence()).isEqualTo(history.log().size() - 1);
+        assertThat(checkpoint.instances()).isEqualTo(5);
+
+        graph.getVertices().get(1).setLabel("changed");
+        graph.getEdges().get(0).setTo(graph.getVertices().get(1));
+        graph.getVertices().add(factory.createVertex());
+
+        SharedResource copy = copy();
+        copy.recover(checkpoint, history.tail(checkpoint));
+
+        assertSameState(copy);
+        assertThat(copy.getHistory().log().size()).isZero();
+        assertThat(copy.instances()).isEqualTo(resource.instances());
+
+        int recovered = history.tail(checkpoint).size();
+        graph.getVertices().get(0).setLabel("after");
+        Vertex added = factory.createVertex();
+        graph.getVertices().add(added);
+        added.setLabel("added");
+        List<Operation> tail = history.tail(checkpoint);
+        for (Operation each : tail.subList(recovered, tail.size())) {
+            copy.receive(each.asMessage());
+        }
+
+        assertSameState(copy);
+    }
+
+    @Test
+    void testOldCheckpointsAreDropped() {
+        history.setRetainedCheckpoints(1);
+        Checkpoint first = history.checkpoint();
+        graph.getVertices().get(0).setLabel("changed");
+        Checkpoint second = history.checkpoint();
+
+        assertThat(history.latestCheckpoint()).isSameAs(second);
+        assertThat(history.log().first()).isEqualTo(second.sequence() + 1);
+        assertThat(history.tail(second)).isEmpty();
+        assertThatThrownBy(() -> history.tail(first)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testCheckpointInterval() {
+        history.setCheckpointInterval(2);
+        history.checkpoint();
+        graph.getVertices().get(0).setLabel("a");
+        assertThat(history.checkpointIfDue()).isFalse();
+        graph.getVertices().get(0).setLabel("b");
+        assertThat(history.checkpointIfDue()).isTrue();
+        assertThat(history.latestCheckpoint().sequence()).isEqualTo(history.log().size() - 1);
+    }
+
+    @Test
+    void testRestartFromPersistedCheckpoint() throws IOException {
+        directory = Files.createTempDirectory("wal");
+        WriteAheadLog wal = new WriteAheadLog(directory, 256);
+        history.setWriteAheadLog(wal);
+        history.setRetainedCheckpoints(1);
+
+        graph.getVertices().get(1).setLabel("before");
+        Checkpoint checkpoint = history.checkpoint();
+        graph.getVertices().get(1).setLabel("after");
+        graph.getVertices().get(2).setWeight(42);
+        graph.getVertices().add(factory.createVertex());
+        for (int i = 0; i < 20; i++) {
+            graph.getVertices().get(0).setWeight(i);
+        }
+        Checkpoint second = history.checkpoint();
+        graph.getEdges().get(0).setTo(graph.getVertices().get(1));
+        history.setWriteAheadLog(null);
+        wal.close();
+
+        assertThat(WriteAheadLog.readCheckpoint(directory).sequence()).isEqualTo(second.sequence());
+        assertThat(WriteAheadLog.read(directory).size()).isLessThan(history.log().size() - checkpoint.sequence());
+
+        SharedResource copy = copy();
+        WriteAheadLog.recover(directory, copy);
+        assertSameState(copy);
+        assertThat(copy.instances()).isEqualTo(resource.instances());
+        assertThat(copy.getHistory().log().first()).isEqualTo(history.log().size());
+
+        WriteAheadLog copyWal = new WriteAheadLog(directory, 256);
+        copy.getHistory().setWriteAheadLog(copyWal);
+        Graph copyGraph = (Graph) copy.contentAt(0);
+        copyGraph.getVertices().get(0).setLabel("restarted");
+        graph.getVertices().get(0).setLabel("restarted");
+        copyWal.close();
+
+        SharedResource again = copy();
+        WriteAheadLog.recover(directory, again);
+        assertSameState(again);
+    }
+
+    private SharedResource copy() {
+        URI uri = URI.createURI("org.atlanmod.consistency.core.CheckpointTest:recovered");
+        NodeId nid = new NodeId((short) 2);
+        return new SharedResource(uri, IdBuilder.generateRID(), nid);
+    }
+
+    private void assertSameState(SharedResource other) {
+        assertThat(other.getContents()).hasSize(1);
+        Graph copy = (Graph) other.contentAt(0);
+        assertThat(copy.getVertices()).extracting("label").isEqualTo(
+                graph.getVertices().stream().map(Vertex::getLabel).collect(Collectors.toList()));
+        assertThat(copy.getVertices()).extracting("weight").isEqualTo(
+                graph.getVertices().stream().map(Vertex::getWeight).collect(Collectors.toList()));
+        assertThat(copy.getEdges()).hasSize(1);
+        assertThat(copy.getEdges().get(0).getFrom().getLabel()).isEqualTo(graph.getEdges().get(0).getFrom().getLabel());
+        assertThat(copy.getEdges().get(0).getTo().getLabel()).isEqualTo(graph.getEdges().get(0).getTo().getLabel());
+    }
+}
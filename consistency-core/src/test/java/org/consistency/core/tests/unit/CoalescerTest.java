@@ -0,0 +1,77 @@
+package org.consistency.core.tests.unit;
+
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.ResourceId;
+import org.atlanmod.consistency.update.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescerTest {
+
+    private final NodeId nid = new NodeId((short) 0);
+    private InstanceId oid;
+    private InstanceId other;
+
+    @BeforeEach
+    void setup() {
+        ResourceId rid = IdBuilder.generateRID();
+        oid = rid.nextId();
+        other = rid.nextId();
+    }
+
+    @Test
+    void testRepeatedSetValuesCollapse() {
+        List<Operation> ops = Arrays.asList(
+                new SetValue(oid.withFeature(1), "b", "a", nid),
+                new SetValue(oid.withFeature(2), 1, 0, nid),
+                new SetValue(oid.withFeature(1), "c", "b", nid));
+
+        List<Operation> result = Coalescer.coalesce(ops);
+
+        assertThat(result).hasSize(2);
+        SetValue last = (SetValue) result.get(1);
+        assertThat(last.value()).isEqualTo("c");
+        assertThat(last.previous()).isEqualTo("a");
+    }
+
+    @Test
+    void testAddThenRemoveCancels() {
+        List<Operation> ops = Arrays.asList(
+                new AddValue(oid.withFeature(0), 7, nid),
+                new RemoveValue(oid.withFeature(0), 7, nid),
+                new AddValue(oid.withFeature(0), 8, nid),
+                new SetValue(oid.withFeature(0), 9, null, nid),
+                new RemoveValue(oid.withFeature(0), 8, nid));
+
+        assertThat(Coalescer.coalesce(ops)).hasSize(3);
+    }
+
+    @Test
+    void testTransientObjectIsDropped() {
+        List<Operation> ops = Arrays.asList(
+                new Attach(oid, nid),
+                new SetValue(oid.withFeature(1), "x", null, nid),
+                new Attach(other, nid),
+                new Detach(oid, nid));
+
+        assertThat(Coalescer.coalesce(ops)).extracting(Operation::instanceId).containsExactly(other);
+    }
+
+    @Test
+    void testReferencedObjectIsKept() {
+        List<Operation> ops = Arrays.asList(
+                new Attach(oid, nid),
+                new Attach(other, nid),
+                new SetReference(other.withFeature(0), oid, nid),
+                new Detach(oid, nid));
+
+        assertThat(Coalescer.coalesce(ops)).hasSize(4);
+    }
+}
@@ -0,0 +1,140 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.GraphPackage;
+import graph.Vertex;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.WriteAheadLog;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.ResourceId;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.*;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactorTest {
+
+    private final NodeId nid = new NodeId((short) 3);
+    private InstanceId oid;
+    private InstanceId other;
+    private Path directory;
+
+    @BeforeEach
+    void setup() throws IOException {
+        ResourceId rid = IdBuilder.generateRID();
+        oid = rid.nextId();
+        other = rid.nextId();
+        directory = Files.createTempDirectory("wal");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(each -> each.toFile().delete());
+        }
+    }
+
+    @Test
+    void testLastWritesAreKept() {
+        Attach attach = new Attach(oid, GraphPackage.Literals.VERTEX, nid);
+        SetValue weight = new SetValue(oid.withFeature(GraphPackage.VERTEX__WEIGHT), 2, 1, nid);
+        Unset label = new Unset(oid.withFeature(GraphPackage.VERTEX__LABEL), nid);
+        List<Operation> operations = Arrays.asList(
+                attach,
+                new SetValue(oid.withFeature(GraphPackage.VERTEX__LABEL), "a", null, nid),
+                new SetValue(oid.withFeature(GraphPackage.VERTEX__WEIGHT), 1, 0, nid),
+                new Batch(Arrays.asList(weight, label), nid),
+                new SetValue(oid.withFeature(GraphPackage.VERTEX__WEIGHT), 3, 2, nid));
+
+        List<Operation> compacted = Compactor.compact(operations);
+
+        assertThat(compacted).hasSize(3);
+        assertThat(compacted.get(0)).isSameAs(attach);
+        assertThat(((Batch) compacted.get(1)).operations()).containsExactly(label);
+        assertThat(((SetValue) compacted.get(2)).value()).isEqualTo(3);
+    }
+
+    @Test
+    void testDeadObjectsAreDropped() {
+        Attach attach = new Attach(other, GraphPackage.Literals.GRAPH, nid);
+        AddReference reference = new AddReference(other.withFeature(GraphPackage.GRAPH__VERTICES), oid, nid);
+        List<Operation> operations = Arrays.asList(
+                new Attach(oid, GraphPackage.Literals.VERTEX, nid),
+                new SetValue(oid.withFeature(GraphPackage.VERTEX__LABEL), "a", null, nid),
+                attach,
+                new Detach(oid, nid));
+
+        assertThat(Compactor.compact(operations)).containsExactly(attach);
+
+        List<Operation> referenced = Arrays.asList(operations.get(0), attach, reference, operations.get(3));
+        assertThat(Compactor.compact(referenced)).isEqualTo(referenced);
+    }
+
+    @Test
+    void testCompactedLogRecoversTheSameState() {
+        Broker broker = new Broker();
+        NeoNode node = new NeoNode(broker);
+        URI uri = URI.createURI("org.atlanmod.consistency.core.CompactorTest:resource");
+        node.attachResource(uri);
+        SharedResource resource = node.getSharedResourceSet().getSharedResource(uri);
+        WriteAheadLog wal = new WriteAheadLog(directory, 512);
+        resource.getHistory().setWriteAheadLog(wal);
+
+        Vertex removed = GraphFactory.eINSTANCE.createVertex();
+        resource.getContents().add(removed);
+        removed.setLabel("transient");
+        resource.getContents().remove(removed);
+
+        Graph graph = GraphFactory.eINSTANCE.createGraph();
+        resource.getContents().add(graph);
+        for (int i = 0; i < 3; i++) {
+            Vertex vertex = GraphFactory.eINSTANCE.createVertex();
+            graph.getVertices().add(vertex);
+            vertex.setLabel("v" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            graph.getVertices().get(i % 3).setWeight(i);
+        }
+        node.sendAll();
+        graph.getVertices().get(0).setLabel("last");
+        node.sendAll();
+        broker.publishAll();
+
+        int records = WriteAheadLog.read(directory).size();
+        int segments = wal.segments().size();
+        int dropped = wal.compact();
+
+        List<Operation> operations = WriteAheadLog.read(directory);
+        assertThat(dropped).isGreaterThan(records / 2);
+        assertThat(operations).hasSize(records - dropped);
+        assertThat(wal.segments().size()).isLessThan(segments);
+        assertThat(wal.compact()).isZero();
+
+        URI copyUri = URI.createURI("org.atlanmod.consistency.core.CompactorTest:recovered");
+        SharedResource recovered = new SharedResource(copyUri, IdBuilder.generateRID(), new NodeId((short) 2));
+        recovered.recover(operations);
+
+        assertThat(recovered.getContents()).hasSize(1);
+        Graph copy = (Graph) recovered.contentAt(0);
+        assertThat(copy.getVertices()).extracting("label").containsExactly("last", "v1", "v2");
+        assertThat(copy.getVertices()).extracting("weight").containsExactly(99, 97, 98);
+        assertThat(recovered.instances()).isEqualTo(resource.instances());
+        wal.close();
+    }
+}
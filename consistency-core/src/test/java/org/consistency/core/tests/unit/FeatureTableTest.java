@@ -0,0 +1,72 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.GraphPackage;
+import graph.Vertex;
+import org.atlanmod.consistency.update.FeatureAccessor;
+import org.atlanmod.consistency.update.FeatureKind;
+import org.atlanmod.consistency.update.FeatureTable;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.impl.EObjectImpl;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureTableTest {
+
+    @Test
+    void testEntries() {
+        FeatureTable table = FeatureTable.of(GraphPackage.Literals.VERTEX);
+
+        assertThat(FeatureTable.of(GraphPackage.Literals.VERTEX)).isSameAs(table);
+        assertThat(table.size()).isEqualTo(3);
+
+        FeatureTable.Entry owner = table.entry(GraphPackage.Literals.VERTEX__OWNER);
+        assertThat(owner.kind()).isEqualTo(FeatureKind.REFERENCE);
+        assertThat(owner.featureId()).isEqualTo(GraphPackage.VERTEX__OWNER);
+        assertThat(owner.isMany()).isFalse();
+
+        FeatureTable.Entry label = table.entry(GraphPackage.Literals.VERTEX__LABEL);
+        assertThat(label.kind()).isEqualTo(FeatureKind.ATTRIBUTE);
+        assertThat(table.entry(GraphPackage.VERTEX__LABEL)).isSameAs(label);
+
+        assertThat(FeatureTable.of(GraphPackage.Literals.GRAPH).entry(GraphPackage.Literals.GRAPH__VERTICES).isMany()).isTrue();
+    }
+
+    @Test
+    void testCompiledAccessors() {
+        FeatureTable table = FeatureTable.of(GraphPackage.Literals.VERTEX);
+        FeatureAccessor weight = table.entry(GraphPackage.VERTEX__WEIGHT).accessor();
+        FeatureAccessor owner = table.entry(GraphPackage.VERTEX__OWNER).accessor();
+        Vertex vertex = GraphFactory.eINSTANCE.createVertex();
+        Graph graph = GraphFactory.eINSTANCE.createGraph();
+
+        assertThat(weight.isCompiled()).isTrue();
+        weight.set(vertex, 3);
+        assertThat(vertex.getWeight()).isEqualTo(3);
+        assertThat(weight.get(vertex)).isEqualTo(3);
+
+        owner.set(vertex, graph);
+        assertThat(graph.getVertices()).containsExactly(vertex);
+
+        FeatureAccessor vertices = FeatureTable.of(GraphPackage.Literals.GRAPH).entry(GraphPackage.GRAPH__VERTICES).accessor();
+        assertThat(vertices.list(graph)).containsExactly(vertex);
+    }
+
+    @Test
+    void testMethodsOfObjectAreNotAccessors() {
+        EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+        eClass.setName("Typed");
+        EAttribute type = EcoreFactory.eINSTANCE.createEAttribute();
+        type.setName("class");
+        type.setEType(EcorePackage.Literals.ESTRING);
+        eClass.getEStructuralFeatures().add(type);
+        eClass.setInstanceClass(EObjectImpl.class);
+
+        assertThat(FeatureTable.of(eClass).entry(type).accessor().isCompiled()).isFalse();
+    }
+}
@@ -0,0 +1,73 @@
+package org.consistency.core.tests.unit;
+
+import org.atlanmod.consistency.core.HybridLogicalClock;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.update.Detach;
+import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.OperationComparator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HybridLogicalClockTest {
+
+    private AtomicLong wall;
+    private HybridLogicalClock clock;
+
+    @BeforeEach
+    void setup() {
+        wall = new AtomicLong(1000);
+        clock = new HybridLogicalClock(wall::get);
+    }
+
+    @Test
+    void testMonotonicWithFrozenWallClock() {
+        long first = clock.now();
+        long second = clock.now();
+
+        assertThat(second).isGreaterThan(first);
+        assertThat(HybridLogicalClock.physical(second)).isEqualTo(1000);
+        assertThat(HybridLogicalClock.logical(second)).isEqualTo(1);
+    }
+
+    @Test
+    void testWallClockResetsLogicalCounter() {
+        clock.now();
+        clock.now();
+        wall.set(1001);
+
+        long next = clock.now();
+
+        assertThat(HybridLogicalClock.physical(next)).isEqualTo(1001);
+        assertThat(HybridLogicalClock.logical(next)).isZero();
+    }
+
+    @Test
+    void testUpdateFromRemoteAhead() {
+        HybridLogicalClock remote = new HybridLogicalClock(() -> 5000);
+        long sent = remote.now();
+
+        long received = clock.update(sent);
+
+        assertThat(received).isGreaterThan(sent);
+        assertThat(clock.now()).isGreaterThan(received);
+    }
+
+    @Test
+    void testComparatorBreaksTiesByOriginator() {
+        Operation first = new Detach(IdBuilder.generateRID().nextId(), new NodeId((short) 1));
+        Operation second = new Detach(IdBuilder.generateRID().nextId(), new NodeId((short) 2));
+        first.stamp(42);
+        second.stamp(42);
+
+        assertThat(OperationComparator.INSTANCE.compare(first, second)).isNegative();
+
+        first.stamp(43);
+
+        assertThat(OperationComparator.INSTANCE.compare(first, second)).isPositive();
+    }
+}
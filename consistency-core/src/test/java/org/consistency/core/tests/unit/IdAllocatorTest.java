@@ -0,0 +1,53 @@
+package org.consistency.core.tests.unit;
+
+import org.atlanmod.consistency.core.IdAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdAllocatorTest {
+
+    private static final int THREADS = 4;
+    private static final int IDS_PER_THREAD = 10_000;
+
+    @Test
+    void testSingleThreadIsSequential() {
+        IdAllocator allocator = new IdAllocator(4);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(allocator.next()).isEqualTo(i);
+        }
+        assertThat(allocator.statistics().leases()).isEqualTo(3);
+        assertThat(allocator.statistics().threads()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() throws InterruptedException {
+        IdAllocator allocator = new IdAllocator(64);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    ids.add(allocator.next());
+                }
+            }));
+        }
+        for (Thread each : threads) {
+            each.start();
+        }
+        for (Thread each : threads) {
+            each.join();
+        }
+
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+        assertThat(allocator.statistics().threads()).isEqualTo(THREADS);
+        assertThat(allocator.statistics().reserved()).isGreaterThanOrEqualTo(THREADS * IDS_PER_THREAD);
+    }
+}
@@ -15,8 +15,12 @@
 package org.consistency.core.tests.unit;
 
 import org.atlanmod.consistency.core.CompositeId;
+import org.atlanmod.consistency.core.FeatureId;
 import org.atlanmod.consistency.core.Id;
 import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.PackedId;
+import org.atlanmod.consistency.core.ResourceId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -64,6 +68,47 @@ class IdTest {
         assertThat(cid).isNotEqualTo(opposite);
     }
 
+    @Test
+    void testPackedInstanceId() {
+        ResourceId rid = IdBuilder.generateRID();
+        InstanceId first = rid.nextId();
+        InstanceId second = rid.nextId();
+
+        assertThat(PackedId.resourceOf(second.toLong())).isEqualTo((short) rid.toInt());
+        assertThat(PackedId.instanceOf(second.toLong())).isEqualTo(PackedId.instanceOf(first.toLong()) + 1);
+        assertThat(PackedId.isFeature(second.toLong())).isFalse();
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void testDecodedIdsShareTheirResourceId() {
+        InstanceId oid = IdBuilder.generateRID().nextId();
+        InstanceId first = IdBuilder.instanceFromLong(oid.toLong());
+        InstanceId second = IdBuilder.instanceFromLong(oid.withFeature(2).toLong());
+
+        assertThat(first).isEqualTo(oid);
+        assertThat(first.high()).isSameAs(second.high());
+    }
+
+    @Test
+    void testPackedFeatureId() {
+        InstanceId oid = IdBuilder.generateRID().nextId();
+        FeatureId fid = oid.withFeature(3);
+
+        assertThat(fid.toInt()).isEqualTo(3);
+        assertThat(PackedId.featureOf(fid.toLong())).isEqualTo(3);
+        assertThat(PackedId.asInstance(fid.toLong())).isEqualTo(oid.toLong());
+        assertThat(PackedId.featureOf(oid.toLong())).isEqualTo(-1);
+    }
+
+    @Test
+    void testFeatureIdIsShared() {
+        InstanceId oid = IdBuilder.generateRID().nextId();
+
+        assertThat(oid.withFeature(2)).isSameAs(oid.withFeature(2));
+        assertThat(oid.withFeature(0)).isNotEqualTo(oid.withFeature(2));
+    }
+
 
 
 
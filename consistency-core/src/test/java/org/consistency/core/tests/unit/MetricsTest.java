@@ -0,0 +1,119 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.Vertex;
+import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.metrics.LatencyHistogram;
+import org.atlanmod.consistency.metrics.Metrics;
+import org.atlanmod.consistency.metrics.Metrics.Stage;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.InsertAt;
+import org.atlanmod.consistency.update.Restore;
+import org.atlanmod.consistency.update.SetValue;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetricsTest {
+
+    private static final int MILLIS_WAIT = 15;
+
+    @Test
+    void testOperationsAreRecordedUnderTheirType() {
+        Metrics metrics = new Metrics();
+        metrics.setEnabled(true);
+        FeatureId fid = IdBuilder.generateRID().nextId().withFeature(0);
+        NodeId nid = new NodeId((short) 0);
+
+        metrics.record(Stage.APPLY, new InsertAt(fid, new int[]{0}, Collections.singletonList(1), nid), metrics.start());
+        metrics.record(Stage.APPLY, new Restore(fid, null, false, nid), metrics.start());
+        metrics.record(Stage.APPLY, new SetValue(fid, "a", null, nid), metrics.start());
+
+        assertThat(metrics.count(Stage.APPLY, MessageType.AddManyValues)).isEqualTo(1);
+        assertThat(metrics.count(Stage.APPLY, MessageType.Unset)).isEqualTo(1);
+        assertThat(metrics.count(Stage.APPLY, MessageType.SetValue)).isEqualTo(1);
+        assertThat(metrics.count(Stage.APPLY)).isEqualTo(3);
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(10_000);
+        assertThat(histogram.max()).isEqualTo(10_000_000);
+        assertThat(histogram.mean()).isCloseTo(5_000_500, within(1.0));
+        assertThat(histogram.valueAtPercentile(50)).isCloseTo(5_000_000, within(5_000_000 / 16L));
+        assertThat(histogram.valueAtPercentile(99)).isCloseTo(9_900_000, within(9_900_000 / 16L));
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(10_000_000);
+
+        histogram.reset();
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.valueAtPercentile(99)).isZero();
+    }
+
+    @Test
+    void testStagesAreRecordedByType() {
+        Broker broker = new Broker();
+        NeoNode node1 = new NeoNode(broker);
+        NeoNode node2 = new NeoNode(broker);
+        URI uri1 = URI.createURI("org.atlanmod.consistency.core.MetricsTest:resource1");
+        URI uri2 = URI.createURI("org.atlanmod.consistency.core.MetricsTest:resource2");
+        node1.attachResource(uri1);
+        node2.attachResource(uri2);
+        SharedResource resource1 = node1.getSharedResourceSet().getSharedResource(uri1);
+
+        Graph graph = GraphFactory.eINSTANCE.createGraph();
+        resource1.getContents().add(graph);
+        exchange(broker, node1, node2);
+        assertThat(node1.metrics().count(Stage.ENQUEUE)).isZero();
+
+        node1.metrics().setEnabled(true);
+        node2.metrics().setEnabled(true);
+        Vertex vertex = GraphFactory.eINSTANCE.createVertex();
+        graph.getVertices().add(vertex);
+        vertex.setLabel("A");
+        vertex.setLabel("B");
+        exchange(broker, node1, node2);
+
+        Metrics metrics1 = node1.metrics();
+        assertThat(metrics1.count(Stage.CAPTURE, MessageType.SetValue)).isEqualTo(2);
+        assertThat(metrics1.count(Stage.ENQUEUE, MessageType.SetValue)).isEqualTo(2);
+        assertThat(metrics1.count(Stage.SEND, MessageType.SetValue)).isEqualTo(2);
+        assertThat(metrics1.count(Stage.SEND)).isEqualTo(metrics1.count(Stage.ENQUEUE));
+        assertThat(metrics1.histogram(Stage.SEND).valueAtPercentile(99)).isPositive();
+
+        Metrics metrics2 = node2.metrics();
+        assertThat(metrics2.count(Stage.RECEIVE, MessageType.Attach)).isEqualTo(1);
+        assertThat(metrics2.count(Stage.RECEIVE)).isEqualTo(metrics1.count(Stage.SEND));
+        assertThat(metrics2.count(Stage.APPLY, MessageType.SetValue)).isEqualTo(2);
+
+        metrics1.setEnabled(false);
+        vertex.setLabel("C");
+        assertThat(metrics1.count(Stage.CAPTURE, MessageType.SetValue)).isEqualTo(2);
+    }
+
+    private static void exchange(Broker broker, NeoNode node1, NeoNode node2) {
+        node1.sendAll();
+        broker.publishAll();
+        try {
+            Thread.sleep(MILLIS_WAIT);
+        } catch (InterruptedException e) {
+            Log.warn(e);
+        }
+        node2.receiveAll();
+    }
+}
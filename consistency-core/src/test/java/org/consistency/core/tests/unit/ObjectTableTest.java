@@ -0,0 +1,69 @@
+package org.consistency.core.tests.unit;
+
+import org.atlanmod.consistency.util.ObjectTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ObjectTableTest {
+
+    private ObjectTable<String> table;
+
+    @BeforeEach
+    void setup() {
+        table = new ObjectTable<>();
+    }
+
+    @Test
+    void testPutGet() {
+        table.put(0, "a");
+        table.put(5000, "b");
+
+        assertThat(table.get(0)).isEqualTo("a");
+        assertThat(table.get(5000)).isEqualTo("b");
+        assertThat(table.get(1)).isNull();
+        assertThat(table.get(100000)).isNull();
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testRemoveLeavesTombstone() {
+        table.put(3, "a");
+
+        assertThat(table.remove(3)).isEqualTo("a");
+        assertThat(table.get(3)).isNull();
+        assertThat(table.isTombstone(3)).isTrue();
+        assertThat(table.isTombstone(4)).isFalse();
+        assertThat(table.size()).isZero();
+
+        table.put(3, "b");
+
+        assertThat(table.isTombstone(3)).isFalse();
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testIterationSkipsEmptySlots() {
+        table.put(2, "a");
+        table.put(1500, "b");
+        table.put(3000, "c");
+        table.remove(1500);
+
+        List<String> iterated = new ArrayList<>();
+        for (String each : table) {
+            iterated.add(each);
+        }
+        List<String> visited = new ArrayList<>();
+        table.forEach(visited::add);
+
+        assertThat(iterated).containsExactly("a", "c");
+        assertThat(visited).containsExactly("a", "c");
+        assertThat(table.nth(1)).isEqualTo("c");
+        assertThat(table.contains("c")).isTrue();
+        assertThat(table.contains("b")).isFalse();
+    }
+}
@@ -161,6 +161,23 @@ class OperationDuplicationTest {
         assertThat(resource2.getHistory().basicHistory()).extracting("class").containsOnlyOnce(RemoveManyReferences.class);
     }
 
+    @Test
+    void ClearValuesTest() {
+        Log.info("");
+        Log.info("----------------- ClearValuesTest -----------------");
+
+        resource.getContents().add(multival);
+        multival.getNumbers().addAll(Arrays.asList(5, 6, 7, 8));
+        multival.getNumbers().clear();
+
+        commit();
+
+        MultiValuesExample multi2 = (MultiValuesExample) resource2.contentAt(0);
+
+        assertThat(multi2.getNumbers()).isEmpty();
+        assertThat(resource2.getHistory().basicHistory()).extracting("class").containsOnlyOnce(RemoveManyValues.class);
+    }
+
     @Test
     void RemoveReferenceTest() {
         Log.info("");
@@ -254,6 +271,23 @@ class OperationDuplicationTest {
         assertThat(multi2.getNumbers()).contains(5,6);
     }
 
+    @Test
+    void MoveValueTest() {
+        Log.info("");
+        Log.info("----------------- MoveValueTest -----------------");
+
+        resource.getContents().add(multival);
+        multival.getNumbers().addAll(Arrays.asList(5, 6, 7, 8));
+        multival.getNumbers().move(3, 0);
+
+        commit();
+
+        MultiValuesExample multi2 = (MultiValuesExample) resource2.contentAt(0);
+
+        assertThat(multi2.getNumbers()).containsExactly(6, 7, 8, 5);
+        assertThat(resource2.getHistory().basicHistory()).extracting("class").containsOnlyOnce(MoveValue.class);
+    }
+
     @Test
     void UnsetTest() {
         Log.info("");
@@ -280,6 +314,31 @@ class OperationDuplicationTest {
         assertThat(vB.getLabel()).isNullOrEmpty();
     }
 
+    @Test
+    void BatchTest() {
+        Log.info("");
+        Log.info("----------------- BatchTest -----------------");
+
+        Vertex vA = factory.createVertex();
+
+        resource.batch(() -> {
+            resource.getContents().add(graph);
+            graph.getVertices().add(vA);
+            vA.setLabel("A");
+        });
+
+        assertThat(resource.getHistory().queue()).hasSize(1);
+        assertThat(resource.getHistory().queue().peek()).isInstanceOf(Batch.class);
+
+        commit();
+
+        assertThat(resource2.contents().size()).isEqualTo(2);
+        Vertex vB = (Vertex) resource2.contentAt(1);
+        assertThat(vB.getLabel()).isEqualTo("A");
+        assertThat(vB.getOwner()).isEqualTo(resource2.contentAt(0));
+        assertThat(resource2.getHistory().basicHistory()).extracting("class").containsOnlyOnce(Batch.class);
+    }
+
     private void commit() {
 
         node1.sendAll();
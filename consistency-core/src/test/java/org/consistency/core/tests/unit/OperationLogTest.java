@@ -0,0 +1,120 @@
+package org.consistency.core.tests.unit;
+
+import graph.GraphPackage;
+import org.atlanmod.consistency.OperationLog;
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.ResourceId;
+import org.atlanmod.consistency.message.UpdateMessage;
+import org.atlanmod.consistency.update.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperationLogTest {
+
+    private final NodeId nid = new NodeId((short) 3);
+    private InstanceId oid;
+    private InstanceId other;
+
+    @BeforeEach
+    void setup() {
+        ResourceId rid = IdBuilder.generateRID();
+        oid = rid.nextId();
+        other = rid.nextId();
+    }
+
+    @Test
+    void testOperationsRoundTrip() {
+        OperationLog log = new OperationLog();
+        Attach attach = new Attach(oid, GraphPackage.Literals.VERTEX, nid);
+        attach.stamp(42);
+        log.append(attach);
+        log.append(new SetValue(oid.withFeature(GraphPackage.VERTEX__LABEL), "label", null, nid));
+        log.append(new AddManyReferences(oid.withFeature(0), Arrays.asList(other, null), nid));
+        log.append(new RemoveManyValues(oid.withFeature(0), Arrays.asList(1, 2L), new int[]{0, 3}, nid));
+        log.append(new InsertElement(oid.withFeature(0), null, new ElementId(7, 3), 1.5, nid));
+        log.append(new Batch(Arrays.asList(new Detach(other, nid), new MoveValue(oid.withFeature(0), 2, 0, nid)), nid));
+
+        assertThat(log.size()).isEqualTo(6);
+        assertThat(log.asList()).extracting("class").containsExactly(Attach.class, SetValue.class,
+                AddManyReferences.class, RemoveManyValues.class, InsertElement.class, Batch.class);
+
+        Attach decoded = (Attach) log.get(0);
+        assertThat(decoded.instanceId()).isEqualTo(oid);
+        assertThat(decoded.getEClass()).isSameAs(GraphPackage.Literals.VERTEX);
+        assertThat(decoded.timestamp()).isEqualTo(42);
+        assertThat(decoded.getOriginator()).isEqualTo(nid);
+
+        assertThat(((SetValue) log.get(1)).value()).isEqualTo("label");
+        assertThat(((SetValue) log.get(1)).featureId()).isEqualTo(oid.withFeature(GraphPackage.VERTEX__LABEL));
+        assertThat(((AddManyReferences) log.get(2)).references()).containsExactly(other, null);
+        assertThat(((RemoveManyValues) log.get(3)).values()).containsExactly(1, 2L);
+        assertThat(((RemoveManyValues) log.get(3)).positions()).containsExactly(0, 3);
+        assertThat(((InsertElement) log.get(4)).element()).isEqualTo(new ElementId(7, 3));
+
+        Batch batch = (Batch) log.get(5);
+        assertThat(batch.operations()).extracting("class").containsExactly(Detach.class, MoveValue.class);
+        assertThat(((MoveValue) batch.operations().get(1)).from()).isEqualTo(2);
+    }
+
+    @Test
+    void testMessagesAreBuiltOnce() {
+        SetValue operation = new SetValue(oid.withFeature(GraphPackage.VERTEX__LABEL), "label", null, nid);
+        operation.stamp(1);
+        UpdateMessage message = operation.message();
+        new OperationLog().append(operation);
+
+        assertThat(operation.message()).isSameAs(message);
+        operation.stamp(2);
+        assertThat(operation.message()).isNotSameAs(message);
+        assertThat(operation.message().timestamp()).isEqualTo(2);
+    }
+
+    @Test
+    void testRecordsSpanChunks() {
+        OperationLog log = new OperationLog(64, 0);
+        for (int i = 0; i < 100; i++) {
+            log.append(new SetValue(oid.withFeature(1), "value " + i, null, nid));
+        }
+
+        assertThat(log.chunks()).isGreaterThan(1);
+        assertThat(log.bytes()).isPositive();
+        assertThat(((SetValue) log.get(73)).value()).isEqualTo("value 73");
+        assertThatThrownBy(() -> log.get(100)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void testValuesThatCannotBeEncodedStayOnTheHeap() {
+        OperationLog log = new OperationLog(OperationLog.DEFAULT_CHUNK_SIZE, 0);
+        Object value = new Object();
+        log.append(new SetValue(oid.withFeature(1), "before", null, nid));
+        log.append(new SetValue(oid.withFeature(1), value, null, nid));
+        log.append(new SetValue(oid.withFeature(1), "after", null, nid));
+
+        assertThat(((SetValue) log.get(1)).value()).isSameAs(value);
+        assertThat(log.asList()).extracting("value").containsExactly("before", value, "after");
+
+        log.truncate(2);
+        assertThat(log.asList()).extracting("value").containsExactly("after");
+    }
+
+    @Test
+    void testInversesAreKeptForRecentOperations() {
+        OperationLog log = new OperationLog(OperationLog.DEFAULT_CHUNK_SIZE, 2);
+        for (int i = 0; i < 3; i++) {
+            AddValue add = new AddValue(oid.withFeature(0), i, i, nid);
+            add.invertedBy(new Unset(oid.withFeature(0), nid));
+            log.append(add);
+        }
+
+        assertThat(log.get(0).inverse()).isNull();
+        assertThat(log.get(2).inverse()).isInstanceOf(Unset.class);
+    }
+}
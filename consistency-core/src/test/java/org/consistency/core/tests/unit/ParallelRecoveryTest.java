@@ -0,0 +1,91 @@
+package org.consistency.core.tests.unit;
+
+import graph.Edge;
+import graph.Graph;
+import graph.GraphFactory;
+import graph.Vertex;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.ParallelRecovery;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.Operation;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelRecoveryTest {
+
+    private final GraphFactory factory = GraphFactory.eINSTANCE;
+
+    @Test
+    void testParallelReplayMatchesSequentialReplay() {
+        NeoNode node = new NeoNode(new Broker());
+        URI uri = URI.createURI("org.atlanmod.consistency.core.ParallelRecoveryTest:resource");
+        node.attachResource(uri);
+        SharedResource resource = node.getSharedResourceSet().getSharedResource(uri);
+
+        Random random = new Random(42);
+        Graph graph = factory.createGraph();
+        resource.getContents().add(graph);
+        for (int i = 0; i < 200; i++) {
+            Vertex vertex = factory.createVertex();
+            graph.getVertices().add(vertex);
+            vertex.setLabel("v" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Vertex vertex = graph.getVertices().get(random.nextInt(200));
+            switch (random.nextInt(3)) {
+                case 0:
+                    vertex.setWeight(random.nextInt(100));
+                    break;
+                case 1:
+                    vertex.setLabel(vertex.getLabel() + i);
+                    break;
+                default:
+                    Edge edge = factory.createEdge();
+                    graph.getEdges().add(edge);
+                    edge.setFrom(vertex);
+                    edge.setTo(graph.getVertices().get(random.nextInt(200)));
+            }
+        }
+        graph.getVertices().move(0, 199);
+        List<Operation> operations = new ArrayList<>(resource.getHistory().basicHistory());
+
+        SharedResource sequential = copy("sequential");
+        sequential.recover(operations);
+        SharedResource parallel = copy("parallel");
+        ParallelRecovery.Result result = new ParallelRecovery(4).recover(parallel, operations);
+
+        assertThat(result.operations()).isEqualTo(operations.size());
+        assertThat(result.parallel()).isPositive();
+        assertThat(result.partitions()).isGreaterThan(1);
+        assertThat(result.throughput()).isPositive();
+        assertThat(describe(parallel)).isEqualTo(describe(sequential)).isEqualTo(describe(resource));
+        assertThat(parallel.getHistory().log().size()).isZero();
+        assertThat(parallel.instances()).isEqualTo(resource.instances());
+    }
+
+    private SharedResource copy(String name) {
+        URI uri = URI.createURI("org.atlanmod.consistency.core.ParallelRecoveryTest:" + name);
+        return new SharedResource(uri, IdBuilder.generateRID(), new NodeId((short) 2));
+    }
+
+    private static List<String> describe(SharedResource resource) {
+        Graph graph = (Graph) resource.contentAt(0);
+        List<String> description = new ArrayList<>();
+        for (Vertex each : graph.getVertices()) {
+            description.add(each.getLabel() + "/" + each.getWeight());
+        }
+        for (Edge each : graph.getEdges()) {
+            description.add(each.getFrom().getLabel() + "->" + each.getTo().getLabel());
+        }
+        return description;
+    }
+}
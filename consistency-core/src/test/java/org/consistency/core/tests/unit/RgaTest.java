@@ -0,0 +1,82 @@
+package org.consistency.core.tests.unit;
+
+import org.atlanmod.consistency.core.ElementId;
+import org.atlanmod.consistency.util.Rga;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RgaTest {
+
+    @Test
+    void testConcurrentInsertsConverge() {
+        ElementId a = new ElementId(1, 0);
+        ElementId b = new ElementId(2, 1);
+        ElementId c = new ElementId(3, 2);
+        ElementId d = new ElementId(4, 1);
+
+        Rga first = new Rga();
+        first.insert(null, a);
+        first.insert(a, b);
+        first.insert(b, d);
+        first.insert(a, c);
+
+        Rga second = new Rga();
+        second.insert(null, a);
+        second.insert(a, c);
+        second.insert(a, b);
+        second.insert(b, d);
+
+        assertThat(elements(first)).containsExactly(a, c, b, d);
+        assertThat(elements(second)).isEqualTo(elements(first));
+    }
+
+    @Test
+    void testRemoveKeepsAnchors() {
+        ElementId a = new ElementId(1, 0);
+        ElementId b = new ElementId(2, 0);
+        Rga rga = new Rga();
+        rga.insert(null, a);
+
+        assertThat(rga.remove(a)).isEqualTo(0);
+        assertThat(rga.remove(a)).isEqualTo(-1);
+        assertThat(rga.insert(a, b)).isEqualTo(0);
+        assertThat(rga.insert(a, b)).isEqualTo(-1);
+        assertThat(rga.size()).isEqualTo(1);
+        assertThat(rga.length()).isEqualTo(2);
+    }
+
+    @Test
+    void testPositionsMatchList() {
+        Random random = new Random(42);
+        Rga rga = new Rga();
+        List<ElementId> expected = new ArrayList<>();
+
+        for (int i = 1; i <= 2000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                int index = random.nextInt(expected.size());
+                assertThat(rga.remove(expected.remove(index))).isEqualTo(index);
+            } else {
+                int index = random.nextInt(expected.size() + 1);
+                ElementId element = new ElementId(i, 0);
+                assertThat(rga.insert(index == 0 ? null : expected.get(index - 1), element)).isEqualTo(index);
+                expected.add(index, element);
+            }
+        }
+
+        assertThat(elements(rga)).isEqualTo(expected);
+        assertThat(rga.indexOf(expected.get(expected.size() / 2))).isEqualTo(expected.size() / 2);
+    }
+
+    private static List<ElementId> elements(Rga rga) {
+        List<ElementId> elements = new ArrayList<>();
+        for (int i = 0; i < rga.size(); i++) {
+            elements.add(rga.get(i));
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,154 @@
+package org.consistency.core.tests.unit;
+
+import org.atlanmod.consistency.util.RingBuffer;
+import org.atlanmod.consistency.util.RingBuffer.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void testOverflowKeepsOrder() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4, WaitStrategy.BLOCKING);
+        for (int i = 0; i < 10; i++) {
+            ring.offer(i);
+        }
+        assertThat(ring).hasSize(10).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(ring.poll()).isEqualTo(0);
+        assertThat(ring.peek()).isEqualTo(1);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(ring.drainTo(drained, 3)).isEqualTo(3);
+        ring.offer(10);
+        ring.drainTo(drained);
+        assertThat(drained).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(ring).isEmpty();
+        assertThat(ring.poll()).isNull();
+
+        assertThatThrownBy(() -> new RingBuffer<>(6, WaitStrategy.BLOCKING)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testConsumersReceiveEachElementOnce() throws InterruptedException {
+        int count = 200_000;
+        RingBuffer<Integer> ring = new RingBuffer<>(1024, WaitStrategy.YIELDING);
+        ConcurrentLinkedQueue<Integer> received = new ConcurrentLinkedQueue<>();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        AtomicBoolean done = new AtomicBoolean();
+
+        List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            Thread consumer = new Thread(() -> {
+                List<Integer> batch = new ArrayList<>();
+                int last = -1;
+                while (!done.get() || !ring.isEmpty()) {
+                    batch.clear();
+                    ring.drainTo(batch, 64);
+                    for (int each : batch) {
+                        if (each <= last) {
+                            ordered.set(false);
+                        }
+                        last = each;
+                    }
+                    received.addAll(batch);
+                }
+            });
+            consumers.add(consumer);
+            consumer.start();
+        }
+        for (int i = 0; i < count; i++) {
+            ring.offer(i);
+        }
+        while (!ring.isEmpty()) {
+            ring.flush();
+            Thread.yield();
+        }
+        done.set(true);
+        for (Thread each : consumers) {
+            each.join();
+        }
+
+        assertThat(ordered).isTrue();
+        assertThat(received).hasSize(count);
+        assertThat(received.stream().distinct().count()).isEqualTo(count);
+    }
+
+    @Test
+    void testConsumerThreadDrainsOverflow() throws InterruptedException {
+        int count = 10_000;
+        RingBuffer<Integer> ring = new RingBuffer<>(4, WaitStrategy.BLOCKING);
+        List<Integer> received = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                while (received.size() < count) {
+                    Integer element = ring.poll(5, TimeUnit.SECONDS);
+                    if (element == null) {
+                        return;
+                    }
+                    received.add(element);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            ring.offer(i);
+        }
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(consumer.isAlive()).isFalse();
+        assertThat(received).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(received.get(i)).isEqualTo(i);
+        }
+        assertThat(ring).isEmpty();
+    }
+
+    @Test
+    void testSingleProducer() throws InterruptedException {
+        RingBuffer<Integer> ring = new RingBuffer<>(4, WaitStrategy.BLOCKING);
+        ring.offer(0);
+        AtomicBoolean rejected = new AtomicBoolean();
+        Thread other = new Thread(() -> {
+            try {
+                ring.offer(1);
+            } catch (IllegalStateException e) {
+                rejected.set(true);
+            }
+        });
+        other.start();
+        other.join();
+
+        assertThat(rejected).isTrue();
+        assertThat(ring).containsExactly(0);
+    }
+
+    @Test
+    void testWaitStrategies() throws InterruptedException {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            RingBuffer<String> ring = new RingBuffer<>(8, strategy);
+            assertThat(ring.poll(1, TimeUnit.MILLISECONDS)).isNull();
+
+            Thread producer = new Thread(() -> {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ring.offer(strategy.name());
+            });
+            producer.start();
+            assertThat(ring.take()).isEqualTo(strategy.name());
+            producer.join();
+        }
+    }
+}
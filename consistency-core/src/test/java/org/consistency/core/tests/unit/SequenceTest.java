@@ -0,0 +1,123 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.MultiValuesExample;
+import graph.Vertex;
+import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.util.ConsistencyUtil;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceTest {
+
+    private static final int MILLIS_WAIT = 15;
+
+    private final GraphFactory factory = GraphFactory.eINSTANCE;
+    private Broker broker;
+    private NeoNode node1, node2;
+    private SharedResource resource1, resource2;
+
+    @BeforeEach
+    void setup() {
+        broker = new Broker();
+        node1 = new NeoNode(broker);
+        node2 = new NeoNode(broker);
+        URI uri1 = URI.createURI("org.atlanmod.consistency.core.SequenceTest:resource1");
+        URI uri2 = URI.createURI("org.atlanmod.consistency.core.SequenceTest:resource2");
+        node1.attachResource(uri1);
+        node2.attachResource(uri2);
+        resource1 = node1.getSharedResourceSet().getSharedResource(uri1);
+        resource2 = node2.getSharedResourceSet().getSharedResource(uri2);
+        resource1.setSequences(true);
+        resource2.setSequences(true);
+    }
+
+    @Test
+    void testReplicatedReferences() {
+        Graph graph = factory.createGraph();
+        Vertex a = factory.createVertex();
+        Vertex b = factory.createVertex();
+        Vertex c = factory.createVertex();
+        resource1.getContents().add(graph);
+        graph.getVertices().addAll(Arrays.asList(a, b));
+        graph.getVertices().add(0, c);
+        graph.getVertices().move(2, 0);
+        graph.getVertices().remove(a);
+
+        node1.sendAll();
+        publish();
+        node2.receiveAll();
+
+        Graph graph2 = (Graph) resource2.contentAt(0);
+        assertThat(graph2.getVertices()).extracting(ConsistencyUtil::identifierFor)
+                .containsExactly(ConsistencyUtil.identifierFor(b), ConsistencyUtil.identifierFor(c));
+        assertThat(resource2.sequences().size()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentInsertsConverge() {
+        MultiValuesExample example = factory.createMultiValuesExample();
+        resource1.getContents().add(example);
+        example.getNumbers().addAll(Arrays.asList(1, 2));
+        exchange();
+
+        MultiValuesExample example2 = (MultiValuesExample) resource2.contentAt(0);
+        example.getNumbers().add(1, 10);
+        example2.getNumbers().add(1, 20);
+        example2.getNumbers().remove(Integer.valueOf(1));
+
+        exchange();
+
+        assertThat(example.getNumbers()).isEqualTo(example2.getNumbers());
+        assertThat(example.getNumbers()).hasSize(3).contains(10, 20, 2);
+    }
+
+    @Test
+    void testConcurrentMovesOfAValueConverge() {
+        MultiValuesExample example = factory.createMultiValuesExample();
+        resource1.getContents().add(example);
+        example.getNumbers().addAll(Arrays.asList(1, 2, 3, 4));
+        exchange();
+
+        MultiValuesExample example2 = (MultiValuesExample) resource2.contentAt(0);
+        example.getNumbers().move(3, 0);
+        example2.getNumbers().move(1, 0);
+        exchange();
+
+        assertThat(example.getNumbers()).isEqualTo(example2.getNumbers());
+        assertThat(example.getNumbers()).containsExactlyInAnyOrder(1, 2, 3, 4);
+
+        example.getNumbers().add(2, 10);
+        example2.getNumbers().move(0, 3);
+        exchange();
+
+        assertThat(example.getNumbers()).isEqualTo(example2.getNumbers());
+        assertThat(example.getNumbers()).containsExactlyInAnyOrder(1, 2, 3, 4, 10);
+    }
+
+    private void exchange() {
+        node1.sendAll();
+        node2.sendAll();
+        publish();
+        node1.receiveAll();
+        node2.receiveAll();
+    }
+
+    private void publish() {
+        broker.publishAll();
+        try {
+            Thread.sleep(MILLIS_WAIT);
+        } catch (InterruptedException e) {
+            Log.warn(e);
+        }
+    }
+}
@@ -19,20 +19,42 @@ import org.atlanmod.commons.log.Log;
 import graph.Edge;
 import graph.Graph;
 import graph.GraphFactory;
+import graph.GraphPackage;
 import graph.Vertex;
 import org.atlanmod.consistency.NeoNode;
 import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.VersionIndex;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.core.PackedId;
+import org.atlanmod.consistency.core.ResourceId;
+import org.atlanmod.consistency.core.TypeId;
+import org.atlanmod.consistency.message.BatchMessage;
+import org.atlanmod.consistency.message.MessageCodec;
+import org.atlanmod.consistency.message.MessageType;
+import org.atlanmod.consistency.message.ValueMessage;
 import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.Batch;
+import org.atlanmod.consistency.update.Detach;
+import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.SetValue;
+import org.atlanmod.consistency.util.ConsistencyUtil;
 import org.eclipse.emf.common.util.URI;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Created on 10/03/2017.
@@ -205,6 +227,28 @@ class SharedResourceTest {
 
     }
 
+    @Test
+    void testExtent() {
+        Log.info("");
+        Log.info("----------------- ExtentTest -----------------");
+
+        Vertex v1 = factory.createVertex();
+        Vertex v2 = factory.createVertex();
+        Vertex v3 = factory.createVertex();
+        resource.getContents().add(graph);
+        graph.getVertices().addAll(Arrays.asList(v1, v2, v3));
+
+        assertThat(resource.extent(GraphPackage.Literals.VERTEX).size()).isEqualTo(3);
+        assertThat(resource.extent(GraphPackage.Literals.GRAPH)).containsExactly(graph);
+        assertThat(resource.extent(GraphPackage.Literals.EDGE).isEmpty()).isTrue();
+
+        graph.getVertices().remove(v1);
+
+        assertThat(resource.extent(GraphPackage.Literals.VERTEX)).containsExactlyInAnyOrder(v2, v3);
+        TypeId vertexType = resource.extents().typeOf(GraphPackage.Literals.VERTEX);
+        assertThat(resource.extents().extent(vertexType).size()).isEqualTo(2);
+    }
+
     @Test
     void testClear() {
         Log.info("");
@@ -227,6 +271,185 @@ class SharedResourceTest {
 
     }
 
+    @Test
+    void testCancel() {
+        Log.info("");
+        Log.info("----------------- CancelTest -----------------");
+
+        resource.getContents().add(graph);
+        Vertex vertexA = factory.createVertex();
+        Vertex vertexB = factory.createVertex();
+        graph.getVertices().addAll(Arrays.asList(vertexA, vertexB));
+        vertexA.setLabel("A");
+
+        List<Operation> history = resource.getHistory().basicHistory();
+        resource.cancel(history.get(history.size() - 1));
+        assertThat(vertexA.getLabel()).isNull();
+
+        resource.batch(() -> {
+            vertexB.setLabel("B");
+            graph.getVertices().move(0, 1);
+            graph.getVertices().remove(vertexA);
+        });
+        assertThat(graph.getVertices()).containsExactly(vertexB);
+
+        resource.cancel(history.get(history.size() - 1));
+
+        assertThat(graph.getVertices()).containsExactly(vertexA, vertexB);
+        assertThat(vertexB.getLabel()).isNull();
+        assertThat(resource.contents().size()).isEqualTo(3);
+    }
+
+    @Test
+    void testCancelMoveBetweenContainers() {
+        Graph other = factory.createGraph();
+        resource.getContents().addAll(Arrays.asList(graph, other));
+        Vertex vertexA = factory.createVertex();
+        Vertex vertexB = factory.createVertex();
+        graph.getVertices().addAll(Arrays.asList(vertexA, vertexB));
+
+        resource.batch(() -> other.getVertices().add(vertexA));
+        assertThat(vertexA.getOwner()).isEqualTo(other);
+
+        List<Operation> history = resource.getHistory().basicHistory();
+        resource.cancel(history.get(history.size() - 1));
+
+        assertThat(graph.getVertices()).containsExactly(vertexA, vertexB);
+        assertThat(other.getVertices()).isEmpty();
+    }
+
+    @Test
+    void testCancelDetachIsRejected() {
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        graph.getVertices().remove(vertex);
+
+        Operation detach = resource.getHistory().basicHistory().stream()
+                .filter(each -> each instanceof Detach)
+                .findFirst().orElseThrow(AssertionError::new);
+        assertThatThrownBy(() -> resource.cancel(detach)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testVersions() {
+        Log.info("");
+        Log.info("----------------- VersionsTest -----------------");
+
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        VersionIndex versions = resource.getHistory().versions();
+        InstanceId oid = (InstanceId) ConsistencyUtil.identifierFor(vertex);
+        FeatureId label = oid.withFeature(GraphPackage.VERTEX__LABEL);
+        int before = versions.version(oid);
+
+        assertThat(versions.version(label)).isEqualTo(VersionIndex.NONE);
+
+        vertex.setLabel("A");
+        vertex.setWeight(1);
+        vertex.setLabel("B");
+
+        assertThat(versions.version(label)).isEqualTo(resource.getHistory().log().size() - 1);
+        assertThat(versions.latest(label)).isInstanceOf(SetValue.class);
+        assertThat(versions.changedSince(label, before)).isTrue();
+        assertThat(versions.changedSince(label, versions.version(label))).isFalse();
+        assertThat(resource.getHistory().changesSince(oid, before)).hasSize(3)
+                .allMatch(each -> each instanceof SetValue);
+    }
+
+    @Test
+    void testLastWriterWins() {
+        Log.info("");
+        Log.info("----------------- LastWriterWinsTest -----------------");
+
+        resource.setLastWriterWins(true);
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        vertex.setLabel("local");
+
+        FeatureId fid = ((InstanceId) ConsistencyUtil.identifierFor(vertex)).withFeature(GraphPackage.VERTEX__LABEL);
+        long local = resource.registers().timestamp(fid);
+        NodeId remote = new NodeId((short) 42);
+
+        resource.receive(new ValueMessage(MessageType.SetValue, fid, "stale", null, remote, local - 1));
+        assertThat(vertex.getLabel()).isEqualTo("local");
+
+        resource.receive(new ValueMessage(MessageType.SetValue, fid, "newer", null, remote, local + 1));
+        assertThat(vertex.getLabel()).isEqualTo("newer");
+        assertThat(resource.registers().timestamp(fid)).isEqualTo(local + 1);
+    }
+
+    @Test
+    void testReceivedOperationsKeepTheirOriginator() {
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        FeatureId label = ((InstanceId) ConsistencyUtil.identifierFor(vertex)).withFeature(GraphPackage.VERTEX__LABEL);
+        NodeId remote = new NodeId((short) 42);
+
+        resource.receive(new ValueMessage(MessageType.SetValue, label, "remote", null, remote, resource.getClock().now() + 1));
+
+        List<Operation> history = resource.getHistory().basicHistory();
+        assertThat(vertex.getLabel()).isEqualTo("remote");
+        assertThat(history.get(history.size() - 1).getOriginator()).isEqualTo(remote);
+    }
+
+    @Test
+    void testBatchIsSentUnderOneHeader() {
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        resource.batch(() -> {
+            vertex.setLabel("A");
+            vertex.setWeight(1);
+        });
+
+        List<Operation> history = resource.getHistory().basicHistory();
+        Batch batch = (Batch) history.get(history.size() - 1);
+        assertThat(batch.operations()).allMatch(each -> each.timestamp() == batch.timestamp());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessageCodec.encode(batch.asMessage(), new DataOutputStream(bytes));
+        BatchMessage decoded = (BatchMessage) MessageCodec.decode(ByteBuffer.wrap(bytes.toByteArray()));
+        assertThat(decoded.messages()).hasSize(2)
+                .allMatch(each -> each.timestamp() == batch.timestamp())
+                .allMatch(each -> each.getOriginator().equals(batch.getOriginator()));
+    }
+
+    @Test
+    void testBatchWithUnknownObjectIsNotApplied() {
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        FeatureId label = ((InstanceId) ConsistencyUtil.identifierFor(vertex)).withFeature(GraphPackage.VERTEX__LABEL);
+        ResourceId rid = IdBuilder.generateRID();
+        rid.reserveUpTo(1000);
+        FeatureId unknown = rid.nextId().withFeature(GraphPackage.VERTEX__LABEL);
+        NodeId remote = new NodeId((short) 42);
+        long timestamp = resource.getClock().now() + 1;
+
+        resource.receive(new BatchMessage(Arrays.asList(
+                new ValueMessage(MessageType.SetValue, label, "A", null, remote, timestamp),
+                new ValueMessage(MessageType.SetValue, unknown, "B", null, remote, timestamp)), remote, timestamp));
+
+        assertThat(vertex.getLabel()).isNull();
+    }
+
+
+    @Test
+    void testResolveRejectsOtherResources() {
+        resource.getContents().add(graph);
+        InstanceId own = (InstanceId) ConsistencyUtil.identifierFor(graph);
+        ResourceId rid = IdBuilder.generateRID();
+        rid.reserveUpTo(PackedId.instanceOf(own.toLong()));
+        InstanceId foreign = rid.nextId();
+
+        assertThat(PackedId.instanceOf(foreign.toLong())).isEqualTo(PackedId.instanceOf(own.toLong()));
+        assertThat(resource.resolve(own)).isSameAs(graph);
+        assertThat(resource.resolve(foreign)).isNull();
+    }
 
 /*
 
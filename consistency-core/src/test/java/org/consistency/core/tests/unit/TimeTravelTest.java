@@ -0,0 +1,127 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.GraphPackage;
+import graph.MultiValuesExample;
+import graph.Vertex;
+import org.atlanmod.consistency.History;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.Snapshot;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.atlanmod.consistency.util.ConsistencyUtil.identifierFor;
+
+class TimeTravelTest {
+
+    private final GraphFactory factory = GraphFactory.eINSTANCE;
+    private SharedResource resource;
+    private History history;
+
+    @BeforeEach
+    void setup() {
+        NeoNode node = new NeoNode(new Broker());
+        URI uri = URI.createURI("org.atlanmod.consistency.core.TimeTravelTest:resource");
+        node.attachResource(uri);
+        resource = node.getSharedResourceSet().getSharedResource(uri);
+        history = resource.getHistory();
+    }
+
+    @Test
+    void testValuesAtPastSequences() {
+        Graph graph = factory.createGraph();
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        MultiValuesExample example = factory.createMultiValuesExample();
+        resource.getContents().add(example);
+
+        FeatureId label = ((InstanceId) identifierFor(vertex)).withFeature(GraphPackage.VERTEX__LABEL);
+        FeatureId numbers = ((InstanceId) identifierFor(example)).withFeature(GraphPackage.MULTI_VALUES_EXAMPLE__NUMBERS);
+        FeatureId vertices = ((InstanceId) identifierFor(graph)).withFeature(GraphPackage.GRAPH__VERTICES);
+
+        int start = history.checkpoint().sequence();
+        List<Integer> sequences = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        List<List<Integer>> values = new ArrayList<>();
+        List<List<Id>> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            vertex.setLabel("label " + i);
+            example.getNumbers().add(0, i);
+            if (i % 2 == 1) {
+                example.getNumbers().move(0, example.getNumbers().size() - 1);
+                graph.getVertices().add(factory.createVertex());
+            }
+            if (i == 2) {
+                history.checkpoint();
+            }
+            sequences.add(history.log().size() - 1);
+            labels.add(vertex.getLabel());
+            values.add(new ArrayList<>(example.getNumbers()));
+            List<Id> current = new ArrayList<>();
+            graph.getVertices().forEach(each -> current.add(identifierFor(each)));
+            ids.add(current);
+        }
+
+        for (int i = 0; i < sequences.size(); i++) {
+            int sequence = sequences.get(i);
+            assertThat(history.valueAt(label, sequence)).isEqualTo(labels.get(i));
+            assertThat(history.valueAt(numbers, sequence)).isEqualTo(values.get(i));
+            assertThat(history.valueAt(vertices, sequence)).isEqualTo(ids.get(i));
+
+            Snapshot snapshot = history.viewAt(sequence);
+            assertThat(snapshot.valueOf(label)).isEqualTo(labels.get(i));
+            assertThat(snapshot.valueOf(numbers)).isEqualTo(values.get(i));
+            assertThat(snapshot.getContents()).hasSize(2);
+        }
+        assertThat(history.valueAt(label, start)).isNull();
+        assertThat((List<?>) history.valueAt(numbers, start)).isEmpty();
+        assertThat(history.log().first()).isEqualTo(start + 1);
+    }
+
+    @Test
+    void testContainerValuesAfterCheckpoint() {
+        Graph graph = factory.createGraph();
+        resource.getContents().add(graph);
+        Vertex vertex = factory.createVertex();
+        graph.getVertices().add(vertex);
+        FeatureId owner = ((InstanceId) identifierFor(vertex)).withFeature(GraphPackage.VERTEX__OWNER);
+
+        int checkpoint = history.checkpoint().sequence();
+        vertex.setLabel("A");
+        int last = history.log().size() - 1;
+
+        assertThat(history.valueAt(owner, checkpoint)).isEqualTo(identifierFor(graph));
+        assertThat(history.valueAt(owner, last)).isEqualTo(identifierFor(graph));
+    }
+
+    @Test
+    void testTruncatedSequencesAreRejected() {
+        MultiValuesExample example = factory.createMultiValuesExample();
+        resource.getContents().add(example);
+        example.getNumbers().addAll(Arrays.asList(1, 2));
+        history.setRetainedCheckpoints(1);
+        history.checkpoint();
+        example.getNumbers().add(3);
+
+        FeatureId numbers = ((InstanceId) identifierFor(example)).withFeature(GraphPackage.MULTI_VALUES_EXAMPLE__NUMBERS);
+        int last = history.log().size() - 1;
+        assertThat(history.valueAt(numbers, last)).isEqualTo(Arrays.asList(1, 2, 3));
+        assertThat(history.valueAt(numbers, last - 1)).isEqualTo(Arrays.asList(1, 2));
+        assertThatThrownBy(() -> history.valueAt(numbers, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> history.viewAt(last + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
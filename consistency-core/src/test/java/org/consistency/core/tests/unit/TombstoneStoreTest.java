@@ -0,0 +1,68 @@
+package org.consistency.core.tests.unit;
+
+import graph.GraphFactory;
+import graph.Vertex;
+import org.atlanmod.consistency.TombstoneStore;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.ResourceId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TombstoneStoreTest {
+
+    private final GraphFactory factory = GraphFactory.eINSTANCE;
+    private final ResourceId rid = IdBuilder.generateRID();
+    private AtomicLong time;
+    private TombstoneStore store;
+
+    @BeforeEach
+    void setup() {
+        time = new AtomicLong();
+        store = new TombstoneStore(2, 100, time::get);
+    }
+
+    @Test
+    void testLookupIsByIdentity() {
+        Vertex first = factory.createVertex();
+        Vertex second = factory.createVertex();
+        InstanceId oid = rid.nextId();
+
+        store.put(first, oid);
+
+        assertThat(store.get(first)).isEqualTo(oid);
+        assertThat(store.get(second)).isNull();
+    }
+
+    @Test
+    void testCountEviction() {
+        Vertex[] vertices = new Vertex[5];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = factory.createVertex();
+            store.put(vertices[i], rid.nextId());
+        }
+
+        assertThat(store.epoch()).isEqualTo(2);
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.get(vertices[0])).isNull();
+        assertThat(store.get(vertices[2])).isNotNull();
+    }
+
+    @Test
+    void testTimeEviction() {
+        Vertex old = factory.createVertex();
+        store.put(old, rid.nextId());
+
+        time.set(100);
+        store.put(factory.createVertex(), rid.nextId());
+        assertThat(store.get(old)).isNotNull();
+
+        time.set(200);
+        store.put(factory.createVertex(), rid.nextId());
+        assertThat(store.get(old)).isNull();
+    }
+}
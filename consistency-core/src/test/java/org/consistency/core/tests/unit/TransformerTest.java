@@ -0,0 +1,194 @@
+package org.consistency.core.tests.unit;
+
+import graph.GraphFactory;
+import graph.MultiValuesExample;
+import org.atlanmod.commons.log.Log;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.core.FeatureId;
+import org.atlanmod.consistency.core.Id;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.*;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransformerTest {
+
+    private static final int MILLIS_WAIT = 15;
+    private static final List<Integer> BASE = Arrays.asList(0, 1, 2, 3);
+
+    private final GraphFactory factory = GraphFactory.eINSTANCE;
+    private final NodeId nid1 = new NodeId((short) 1);
+    private final NodeId nid2 = new NodeId((short) 2);
+    private FeatureId fid;
+
+    @BeforeEach
+    void setup() {
+        fid = IdBuilder.generateRID().nextId().withFeature(0);
+    }
+
+    /**
+     * Checks that both orders of application converge, for every pair of operations on a list of four
+     * values and both tie-breaking outcomes.
+     */
+    @Test
+    void testConvergenceMatrix() {
+        List<PositionalOperation> left = operations(nid1, 100);
+        List<PositionalOperation> right = operations(nid2, 200);
+
+        for (PositionalOperation a : left) {
+            for (PositionalOperation b : right) {
+                for (boolean aWins : new boolean[]{true, false}) {
+                    List<Integer> ab = apply(a, Transformer.transform(b, a, !aWins));
+                    List<Integer> ba = apply(b, Transformer.transform(a, b, aWins));
+
+                    assertThat(ab).as("%s then %s (wins: %s)", a, b, aWins).isEqualTo(ba);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testIntentionsArePreserved() {
+        AddValue add = new AddValue(fid, 100, 3, nid1);
+        RemoveManyValues remove = new RemoveManyValues(fid, Arrays.asList(0, 1), new int[]{0, 1}, nid2);
+
+        AddValue shifted = (AddValue) Transformer.transform(add, remove, true);
+        assertThat(shifted.position()).isEqualTo(1);
+        assertThat(apply(remove, shifted)).containsExactly(2, 100, 3);
+
+        MoveValue move = new MoveValue(fid, 1, 3, nid1);
+        assertThat(Transformer.transform(move, remove, true)).isNull();
+        assertThat(Transformer.transform(remove, remove, true)).isNull();
+    }
+
+    @Test
+    void testConcurrentEditsConverge() {
+        Broker broker = new Broker();
+        NeoNode node1 = new NeoNode(broker);
+        NeoNode node2 = new NeoNode(broker);
+        URI uri1 = URI.createURI("org.atlanmod.consistency.core.TransformerTest:resource1");
+        URI uri2 = URI.createURI("org.atlanmod.consistency.core.TransformerTest:resource2");
+        node1.attachResource(uri1);
+        node2.attachResource(uri2);
+        SharedResource resource1 = node1.getSharedResourceSet().getSharedResource(uri1);
+        SharedResource resource2 = node2.getSharedResourceSet().getSharedResource(uri2);
+
+        resource1.setOperationalTransform(true);
+        resource2.setOperationalTransform(true);
+
+        MultiValuesExample example = factory.createMultiValuesExample();
+        resource1.getContents().add(example);
+        example.getNumbers().addAll(BASE);
+        exchange(broker, node1, node2);
+        MultiValuesExample example2 = (MultiValuesExample) resource2.contentAt(0);
+
+        example.getNumbers().add(1, 10);
+        example.getNumbers().move(0, 4);
+        example2.getNumbers().add(1, 20);
+        example2.getNumbers().removeAll(Arrays.asList(0, 2));
+        exchange(broker, node1, node2);
+
+        assertThat(example.getNumbers()).isEqualTo(example2.getNumbers());
+        assertThat(example.getNumbers()).containsExactlyInAnyOrder(10, 20, 1, 3);
+        assertThat(example.getNumbers().get(0)).isEqualTo(3);
+
+        assertThat(resource1.getHistory().pending()).isNotEmpty();
+
+        example2.getNumbers().add(0, 30);
+        exchange(broker, node1, node2);
+
+        assertThat(example.getNumbers()).isEqualTo(example2.getNumbers()).startsWith(30);
+        assertThat(resource1.getHistory().pending()).isEmpty();
+    }
+
+    @Test
+    void testConcurrentRemoveByValueConverges() {
+        Broker broker = new Broker();
+        NeoNode node1 = new NeoNode(broker);
+        NeoNode node2 = new NeoNode(broker);
+        URI uri1 = URI.createURI("org.atlanmod.consistency.core.TransformerTest:removed1");
+        URI uri2 = URI.createURI("org.atlanmod.consistency.core.TransformerTest:removed2");
+        node1.attachResource(uri1);
+        node2.attachResource(uri2);
+        SharedResource resource1 = node1.getSharedResourceSet().getSharedResource(uri1);
+        SharedResource resource2 = node2.getSharedResourceSet().getSharedResource(uri2);
+
+        resource1.setOperationalTransform(true);
+        resource2.setOperationalTransform(true);
+        node1.setCoalescing(true);
+
+        MultiValuesExample example = factory.createMultiValuesExample();
+        resource1.getContents().add(example);
+        example.getNumbers().addAll(BASE);
+        exchange(broker, node1, node2);
+        MultiValuesExample example2 = (MultiValuesExample) resource2.contentAt(0);
+
+        example.getNumbers().remove(Integer.valueOf(1));
+        example2.getNumbers().add(2, 20);
+        exchange(broker, node1, node2);
+
+        assertThat(example.getNumbers()).containsExactly(0, 20, 2, 3);
+        assertThat(example2.getNumbers()).containsExactly(0, 20, 2, 3);
+    }
+
+    private List<PositionalOperation> operations(NodeId nid, int value) {
+        List<PositionalOperation> operations = new ArrayList<>();
+        for (int p = 0; p <= BASE.size(); p++) {
+            operations.add(new AddValue(fid, value + p, p, nid));
+        }
+        for (int from = 0; from < BASE.size(); from++) {
+            for (int to = 0; to < BASE.size(); to++) {
+                operations.add(new MoveValue(fid, from, to, nid));
+            }
+        }
+        for (int subset = 1; subset < 1 << BASE.size(); subset++) {
+            List<Object> values = new ArrayList<>();
+            List<Id> ids = new ArrayList<>();
+            int[] positions = new int[Integer.bitCount(subset)];
+            for (int i = 0, j = 0; i < BASE.size(); i++) {
+                if ((subset & 1 << i) != 0) {
+                    values.add(BASE.get(i));
+                    ids.add(IdBuilder.fromInt(i));
+                    positions[j++] = i;
+                }
+            }
+            operations.add(new RemoveManyValues(fid, values, positions, nid));
+            operations.add(new RemoveManyReferences(fid, ids, nid));
+        }
+        return operations;
+    }
+
+    private List<Integer> apply(Operation... operations) {
+        MultiValuesExample example = factory.createMultiValuesExample();
+        example.getNumbers().addAll(BASE);
+        for (Operation each : operations) {
+            if (each != null) {
+                each.execute(null, example);
+            }
+        }
+        return new ArrayList<>(example.getNumbers());
+    }
+
+    private static void exchange(Broker broker, NeoNode node1, NeoNode node2) {
+        node1.sendAll();
+        node2.sendAll();
+        broker.publishAll();
+        try {
+            Thread.sleep(MILLIS_WAIT);
+        } catch (InterruptedException e) {
+            Log.warn(e);
+        }
+        node1.receiveAll();
+        node2.receiveAll();
+    }
+}
@@ -0,0 +1,158 @@
+package org.consistency.core.tests.unit;
+
+import graph.Graph;
+import graph.GraphFactory;
+import graph.Vertex;
+import org.atlanmod.consistency.NeoNode;
+import org.atlanmod.consistency.SharedResource;
+import org.atlanmod.consistency.WriteAheadLog;
+import org.atlanmod.consistency.core.IdBuilder;
+import org.atlanmod.consistency.core.InstanceId;
+import org.atlanmod.consistency.core.NodeId;
+import org.atlanmod.consistency.pubsub.Broker;
+import org.atlanmod.consistency.update.Operation;
+import org.atlanmod.consistency.update.SetValue;
+import org.eclipse.emf.common.util.URI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    private final NodeId nid = new NodeId((short) 3);
+    private InstanceId oid;
+    private Path directory;
+
+    @BeforeEach
+    void setup() throws IOException {
+        oid = IdBuilder.generateRID().nextId();
+        directory = Files.createTempDirectory("wal");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(each -> each.toFile().delete());
+        }
+    }
+
+    @Test
+    void testRecordsAreReadBackAcrossSegments() {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 256)) {
+            for (int i = 0; i < 50; i++) {
+                wal.append(i, new SetValue(oid.withFeature(1), "value " + i, null, nid));
+            }
+            assertThat(wal.segments().size()).isGreaterThan(1);
+        }
+
+        List<Operation> operations = WriteAheadLog.read(directory);
+        assertThat(operations).hasSize(50);
+        assertThat(((SetValue) operations.get(37)).value()).isEqualTo("value 37");
+    }
+
+    @Test
+    void testGroupCommit() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory);
+        wal.setGroupCommit(4, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 3; i++) {
+            wal.append(i, new SetValue(oid.withFeature(1), i, null, nid));
+        }
+        Path segment = wal.segments().get(0);
+        assertThat(Files.size(segment)).isZero();
+
+        wal.append(3, new SetValue(oid.withFeature(1), 3, null, nid));
+        assertThat(Files.size(segment)).isPositive();
+        assertThat(WriteAheadLog.read(directory)).hasSize(4);
+        wal.close();
+    }
+
+    @Test
+    void testGroupCommitAfterInterval() throws IOException, InterruptedException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory)) {
+            wal.setGroupCommit(100, 20, TimeUnit.MILLISECONDS);
+            wal.append(0, new SetValue(oid.withFeature(1), 0, null, nid));
+            Path segment = wal.segments().get(0);
+            assertThat(Files.size(segment)).isZero();
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (Files.size(segment) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(WriteAheadLog.read(directory)).hasSize(1);
+        }
+    }
+
+    @Test
+    void testTornRecordEndsItsSegment() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory)) {
+            for (int i = 0; i < 3; i++) {
+                wal.append(i, new SetValue(oid.withFeature(1), i, null, nid));
+            }
+        }
+        Path torn = new WriteAheadLog(directory).segments().get(0);
+        try (FileChannel channel = FileChannel.open(torn, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (WriteAheadLog wal = new WriteAheadLog(directory)) {
+            wal.append(0, new SetValue(oid.withFeature(1), 10, null, nid));
+        }
+
+        assertThat(WriteAheadLog.read(directory)).extracting("value").containsExactly(0, 1, 10);
+    }
+
+    @Test
+    void testTruncate() {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 128)) {
+            for (int i = 0; i < 20; i++) {
+                wal.append(i, new SetValue(oid.withFeature(1), i, null, nid));
+            }
+            int segments = wal.segments().size();
+            wal.truncate(10);
+            wal.sync();
+
+            assertThat(wal.segments().size()).isLessThan(segments);
+            assertThat(WriteAheadLog.read(directory)).extracting("value").contains(10, 19).doesNotContain(0);
+        }
+    }
+
+    @Test
+    void testRecoverResource() {
+        NeoNode node = new NeoNode(new Broker());
+        URI uri = URI.createURI("org.atlanmod.consistency.core.WriteAheadLogTest:resource");
+        node.attachResource(uri);
+        SharedResource resource = node.getSharedResourceSet().getSharedResource(uri);
+        WriteAheadLog wal = new WriteAheadLog(directory);
+        resource.getHistory().setWriteAheadLog(wal);
+
+        Graph graph = GraphFactory.eINSTANCE.createGraph();
+        resource.getContents().add(graph);
+        for (int i = 0; i < 3; i++) {
+            Vertex vertex = GraphFactory.eINSTANCE.createVertex();
+            graph.getVertices().add(vertex);
+            vertex.setLabel("v" + i);
+        }
+        graph.getVertices().move(0, 2);
+        node.sendAll();
+
+        URI copyUri = URI.createURI("org.atlanmod.consistency.core.WriteAheadLogTest:recovered");
+        SharedResource recovered = new SharedResource(copyUri, IdBuilder.generateRID(), new NodeId((short) 2));
+        recovered.recover(WriteAheadLog.read(directory));
+
+        Graph copy = (Graph) recovered.contentAt(0);
+        assertThat(copy.getVertices()).extracting("label").containsExactly("v2", "v0", "v1");
+        assertThat(recovered.getHistory().log().size()).isZero();
+        wal.close();
+    }
+}